@@ -0,0 +1,54 @@
+package com.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+    
+    /**
+     * Bounded pool for the product-detail fan-out. When it is saturated the request thread runs
+     * the branch itself, which degrades to sequential lookups instead of queueing without limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor productDetailExecutor(
+            @Value("${app.product-detail.pool-size:32}") int poolSize,
+            @Value("${app.product-detail.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("product-detail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+    
+    /**
+     * Threads for the queued checkout workers, which run for the life of the application.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor checkoutExecutor(@Value("${app.checkout.queue.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("checkout-");
+        return executor;
+    }
+
+    /**
+     * The single thread that applies product changes to the in-memory catalog views, so they
+     * are applied one at a time in the order they were queued and never on a request thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor catalogChangeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("catalog-change-");
+        return executor;
+    }
+}
@@ -3,6 +3,7 @@ package com.ecommerce.controller;
 import com.ecommerce.dto.*;
 import com.ecommerce.security.UserPrincipal;
 import com.ecommerce.service.CartService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -42,6 +43,13 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success(cartService.removeFromCart(user.getId(), productId)));
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartDTO>> applyBatch(
+            @AuthenticationPrincipal UserPrincipal user,
+            @Valid @RequestBody CartBatchRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(cartService.applyBatch(user.getId(), request.getOperations())));
+    }
+    
     @DeleteMapping("/clear")
     public ResponseEntity<ApiResponse<Void>> clearCart(@AuthenticationPrincipal UserPrincipal user) {
         cartService.clearCart(user.getId());
@@ -1,10 +1,13 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.*;
+import com.ecommerce.service.CatalogVersionService;
 import com.ecommerce.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
 @RestController
@@ -12,14 +15,40 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CategoryController {
     private final CategoryService categoryService;
+    private final CatalogVersionService catalogVersionService;
     
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CategoryDTO>>> getAllCategories() {
+    public ResponseEntity<ApiResponse<List<CategoryDTO>>> getAllCategories(WebRequest request) {
+        if (catalogVersionService.categories().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(categoryService.getAllCategories()));
     }
     
     @GetMapping("/root")
-    public ResponseEntity<ApiResponse<List<CategoryDTO>>> getRootCategories() {
+    public ResponseEntity<ApiResponse<List<CategoryDTO>>> getRootCategories(WebRequest request) {
+        if (catalogVersionService.categories().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(categoryService.getRootCategories()));
     }
+    
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CategoryDTO>> createCategory(@RequestBody CategoryDTO categoryDTO) {
+        return ResponseEntity.ok(ApiResponse.success(categoryService.createCategory(categoryDTO)));
+    }
+    
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CategoryDTO>> updateCategory(@PathVariable Long id, @RequestBody CategoryDTO categoryDTO) {
+        return ResponseEntity.ok(ApiResponse.success(categoryService.updateCategory(id, categoryDTO)));
+    }
+    
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> deleteCategory(@PathVariable Long id) {
+        categoryService.deleteCategory(id);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
 }
@@ -2,6 +2,8 @@ package com.ecommerce.controller;
 
 import com.ecommerce.dto.*;
 import com.ecommerce.security.UserPrincipal;
+import com.ecommerce.service.CartStore;
+import com.ecommerce.service.CheckoutQueue;
 import com.ecommerce.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,15 +17,43 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final CheckoutQueue checkoutQueue;
+    private final CartStore cartStore;
     
+    // In queued mode the order is placed later; the 202 carries a ticket to poll
     @PostMapping
-    public ResponseEntity<ApiResponse<OrderDTO>> createOrder(
+    public ResponseEntity<? extends ApiResponse<?>> createOrder(
             @AuthenticationPrincipal UserPrincipal user,
             @Valid @RequestBody CreateOrderRequest request) {
+        if (checkoutQueue.isEnabled()) {
+            return ResponseEntity.accepted().body(ApiResponse.success("Order queued",
+                    checkoutQueue.submit(user.getId(), request)));
+        }
+        cartStore.flush(user.getId());
         return ResponseEntity.ok(ApiResponse.success("Order created successfully", 
                 orderService.createOrder(user.getId(), request)));
     }
     
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<ApiResponse<CheckoutTicketDTO>> getCheckoutTicket(
+            @AuthenticationPrincipal UserPrincipal user,
+            @PathVariable String ticketId) {
+        return ResponseEntity.ok(ApiResponse.success(checkoutQueue.getTicket(user.getId(), ticketId)));
+    }
+    
+    @PostMapping("/holds")
+    public ResponseEntity<ApiResponse<StockHoldDTO>> createStockHold(@AuthenticationPrincipal UserPrincipal user) {
+        return ResponseEntity.ok(ApiResponse.success("Stock held", orderService.createStockHold(user.getId())));
+    }
+    
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<ApiResponse<Void>> releaseStockHold(
+            @AuthenticationPrincipal UserPrincipal user,
+            @PathVariable String holdId) {
+        orderService.releaseStockHold(user.getId(), holdId);
+        return ResponseEntity.ok(ApiResponse.success("Stock hold released", null));
+    }
+    
     @GetMapping
     public ResponseEntity<ApiResponse<Page<OrderDTO>>> getUserOrders(
             @AuthenticationPrincipal UserPrincipal user,
@@ -32,6 +62,14 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orderService.getUserOrders(user.getId(), page, size)));
     }
     
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderDTO>>> scrollUserOrders(
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(ApiResponse.success(orderService.scrollUserOrders(user.getId(), cursor, size)));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<OrderDTO>> getOrderById(@PathVariable Long id) {
         return ResponseEntity.ok(ApiResponse.success(orderService.getOrderById(id)));
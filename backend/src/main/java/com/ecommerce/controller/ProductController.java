@@ -1,11 +1,22 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.*;
+import com.ecommerce.service.CatalogVersionService;
+import com.ecommerce.security.UserPrincipal;
+import com.ecommerce.service.ProductBulkService;
+import com.ecommerce.service.ProductDetailService;
 import com.ecommerce.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -14,66 +25,184 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ProductController {
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ProductDetailService productDetailService;
+    private final CatalogVersionService catalogVersionService;
     
     @GetMapping
-    public ResponseEntity<ApiResponse<PageResponse<ProductDTO>>> getAllProducts(
+    public ResponseEntity<ApiResponse<PageResponse<ProductCardDTO>>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(productService.getAllProducts(page, size, sortBy, sortDir)));
     }
     
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductCardDTO>>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(ApiResponse.success(productService.scrollProducts(cursor, size, sortBy, sortDir)));
+    }
+    
+    @GetMapping("/filter")
+    public ResponseEntity<ApiResponse<FacetedProductsDTO>> filterProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(required = false) Boolean onSale,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
+        ProductFilter filter = ProductFilter.builder()
+                .categoryId(categoryId)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .onSale(onSale)
+                .inStock(inStock)
+                .build();
+        return ResponseEntity.ok(ApiResponse.success(productService.filterProducts(filter, page, size, sortBy, sortDir)));
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductDTO>> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductDTO>> getProductById(@PathVariable Long id, WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(productService.getProductById(id)));
     }
     
+    @GetMapping("/{id}/detail")
+    public ResponseEntity<ApiResponse<ProductDetailDTO>> getProductDetail(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal user) {
+        Long userId = user != null ? user.getId() : null;
+        return ResponseEntity.ok(ApiResponse.success(productDetailService.getProductDetail(id, userId)));
+    }
+    
+    @GetMapping("/{id}/related")
+    public ResponseEntity<ApiResponse<List<ProductCardDTO>>> getRelatedProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(ApiResponse.success(productService.getRelatedProducts(id, limit)));
+    }
+    
+    @PostMapping("/related/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> rebuildRelatedProducts() {
+        return ResponseEntity.ok(ApiResponse.success("Related products rebuilt", productService.rebuildRelatedProducts()));
+    }
+    
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse<PageResponse<ProductDTO>>> getProductsByCategory(
+    public ResponseEntity<ApiResponse<PageResponse<ProductCardDTO>>> getProductsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(ApiResponse.success(productService.getProductsByCategory(categoryId, page, size)));
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(ApiResponse.success(productService.getProductsByCategory(categoryId, page, size, sortBy, sortDir)));
     }
     
     @GetMapping("/featured")
-    public ResponseEntity<ApiResponse<List<ProductDTO>>> getFeaturedProducts() {
+    public ResponseEntity<ApiResponse<List<ProductCardDTO>>> getFeaturedProducts(WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(productService.getFeaturedProducts()));
     }
     
     @GetMapping("/top-selling")
-    public ResponseEntity<ApiResponse<List<ProductDTO>>> getTopSellingProducts(
-            @RequestParam(defaultValue = "10") int limit) {
+    public ResponseEntity<ApiResponse<List<ProductCardDTO>>> getTopSellingProducts(
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(productService.getTopSellingProducts(limit)));
     }
     
     @GetMapping("/new-arrivals")
-    public ResponseEntity<ApiResponse<List<ProductDTO>>> getNewArrivals(
-            @RequestParam(defaultValue = "10") int limit) {
+    public ResponseEntity<ApiResponse<List<ProductCardDTO>>> getNewArrivals(
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(productService.getNewArrivals(limit)));
     }
     
     @GetMapping("/on-sale")
-    public ResponseEntity<ApiResponse<List<ProductDTO>>> getOnSaleProducts(
-            @RequestParam(defaultValue = "10") int limit) {
+    public ResponseEntity<ApiResponse<List<ProductCardDTO>>> getOnSaleProducts(
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(productService.getOnSaleProducts(limit)));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<PageResponse<ProductDTO>>> searchProducts(
+    public ResponseEntity<ApiResponse<PageResponse<ProductCardDTO>>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(ApiResponse.success(productService.searchProducts(keyword, page, size)));
     }
     
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "3") int categoryLimit,
+            WebRequest request) {
+        if (catalogVersionService.products().checkNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(ApiResponse.success(productService.suggest(q, limit, categoryLimit)));
+    }
+    
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<ProductDTO>> createProduct(@RequestBody ProductDTO productDTO) {
         return ResponseEntity.ok(ApiResponse.success(productService.createProduct(productDTO)));
     }
     
+    @PutMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkUpdateResult>> bulkUpdateProducts(@RequestBody List<ProductPatchDTO> patches) {
+        return ResponseEntity.ok(ApiResponse.success(productBulkService.bulkUpdate(patches)));
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<ProductDTO>> updateProduct(@PathVariable Long id, @RequestBody ProductDTO productDTO) {
@@ -94,9 +223,27 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(null));
     }
     
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductImportResult>> importProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            InputStream body) {
+        return ResponseEntity.ok(ApiResponse.success(productBulkService.importProducts(body, format)));
+    }
+    
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + (csv ? "csv" : "ndjson"))
+                .body(out -> productBulkService.exportProducts(out, format));
+    }
+    
     @GetMapping("/deleted")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<PageResponse<ProductDTO>>> getDeletedProducts(
+    public ResponseEntity<ApiResponse<PageResponse<ProductCardDTO>>> getDeletedProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         return ResponseEntity.ok(ApiResponse.success(productService.getDeletedProducts(page, size)));
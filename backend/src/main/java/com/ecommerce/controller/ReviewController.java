@@ -7,6 +7,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,10 +25,26 @@ public class ReviewController {
         return ResponseEntity.ok(ApiResponse.success(reviewService.getProductReviews(productId, page, size)));
     }
     
+    @GetMapping("/product/{productId}/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ReviewDTO>>> scrollProductReviews(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(ApiResponse.success(reviewService.scrollProductReviews(productId, cursor, size)));
+    }
+    
     @PostMapping
     public ResponseEntity<ApiResponse<ReviewDTO>> createReview(
             @AuthenticationPrincipal UserPrincipal user,
             @Valid @RequestBody CreateReviewRequest request) {
         return ResponseEntity.ok(ApiResponse.success("Review submitted", reviewService.createReview(user.getId(), request)));
     }
+    
+    @PutMapping("/{id}/visibility")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ReviewDTO>> updateVisibility(
+            @PathVariable Long id,
+            @RequestParam boolean visible) {
+        return ResponseEntity.ok(ApiResponse.success("Review visibility updated", reviewService.updateVisibility(id, visible)));
+    }
 }
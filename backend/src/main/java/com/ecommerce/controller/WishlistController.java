@@ -17,7 +17,7 @@ public class WishlistController {
     private final WishlistService wishlistService;
     
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ProductDTO>>> getWishlist(@AuthenticationPrincipal UserPrincipal user) {
+    public ResponseEntity<ApiResponse<List<ProductCardDTO>>> getWishlist(@AuthenticationPrincipal UserPrincipal user) {
         return ResponseEntity.ok(ApiResponse.success(wishlistService.getWishlist(user.getId())));
     }
     
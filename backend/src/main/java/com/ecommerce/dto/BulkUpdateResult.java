@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateResult {
+    private int requested;
+    private int updated;
+    private List<Long> notFound;
+    // Products left unpatched because a batch failed; empty when the whole request was applied
+    private List<Long> notApplied;
+    private String error;
+}
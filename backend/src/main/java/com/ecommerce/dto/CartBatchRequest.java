@@ -0,0 +1,38 @@
+package com.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Cart changes applied together, in order. SET adds the line when it is missing and a quantity of
+ * zero or less removes it; REMOVE of a product that is not in the cart is ignored, so a client can
+ * replay its pending changes safely.
+ */
+@Data
+public class CartBatchRequest {
+    @NotEmpty
+    @Valid
+    private List<Operation> operations;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+        @NotNull
+        private Type type;
+        
+        @NotNull
+        private Long productId;
+        
+        private Integer quantity;
+    }
+    
+    public enum Type {
+        ADD, SET, REMOVE
+    }
+}
@@ -35,4 +35,18 @@ public class CartItemDTO {
                 .stockQuantity(item.getProduct().getStockQuantity())
                 .build();
     }
+    
+    // Line ids are not tracked by the in-memory cart; clients address lines by productId
+    public static CartItemDTO of(PriceCardDTO product, int quantity) {
+        return CartItemDTO.builder()
+                .productId(product.getId())
+                .productName(product.getName())
+                .productImage(product.getImageUrl())
+                .price(product.getPrice())
+                .originalPrice(product.getOriginalPrice())
+                .quantity(quantity)
+                .subtotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .stockQuantity(product.getStockQuantity())
+                .build();
+    }
 }
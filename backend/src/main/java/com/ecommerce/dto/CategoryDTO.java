@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,6 +20,10 @@ public class CategoryDTO {
     private String imageUrl;
     private Long parentId;
     private List<CategoryDTO> children;
+    // Products filed directly under this category
+    private Stats stats;
+    // This category and every descendant, matching what the category product listing returns
+    private Stats subtreeStats;
     
     public static CategoryDTO fromEntity(Category category) {
         CategoryDTO dto = CategoryDTO.builder()
@@ -38,4 +43,14 @@ public class CategoryDTO {
         
         return dto;
     }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stats {
+        private int productCount;
+        private int inStockCount;
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+    }
 }
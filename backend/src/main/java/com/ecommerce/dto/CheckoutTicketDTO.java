@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutTicketDTO {
+    private String ticketId;
+    private String status;
+    private OrderDTO order;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -20,4 +20,7 @@ public class CreateOrderRequest {
     private String couponCode;
     
     private String note;
+    
+    // Optional hold from POST /api/orders/holds; without one, checkout takes a short hold itself
+    private String holdId;
 }
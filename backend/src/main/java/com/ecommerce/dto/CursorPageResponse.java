@@ -0,0 +1,28 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Window;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean last;
+    
+    public static <T> CursorPageResponse<T> from(Window<?> window, List<T> content, String nextCursor) {
+        return CursorPageResponse.<T>builder()
+                .content(content)
+                .size(content.size())
+                .nextCursor(window.hasNext() ? nextCursor : null)
+                .last(!window.hasNext())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductsDTO {
+    private PageResponse<ProductCardDTO> products;
+    private Facets facets;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Facets {
+        private Map<Long, Integer> categories;
+        private List<PriceRangeFacet> priceRanges;
+        private Map<Integer, Integer> minRating;
+        private Integer onSale;
+        private Integer inStock;
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRangeFacet {
+        private BigDecimal min;
+        private BigDecimal max;
+        private Integer count;
+    }
+}
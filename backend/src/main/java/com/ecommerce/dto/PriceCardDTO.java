@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.math.BigDecimal;
+
+/**
+ * The product fields a cart line shows. Instances are shared through the price card cache,
+ * so there are no setters.
+ */
+@Getter
+@AllArgsConstructor
+public class PriceCardDTO {
+    private final Long id;
+    private final String name;
+    private final String imageUrl;
+    private final BigDecimal price;
+    private final BigDecimal originalPrice;
+    private final Integer stockQuantity;
+    private final Boolean isActive;
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * Slim product view for list screens. Field names match {@link ProductDTO} so clients can
+ * read either shape; the description and image gallery are only served by the detail endpoint.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCardDTO {
+    private Long id;
+    private Long categoryId;
+    private String categoryName;
+    private String name;
+    private BigDecimal price;
+    private BigDecimal originalPrice;
+    private Integer stockQuantity;
+    private Integer soldQuantity;
+    private String imageUrl;
+    private Boolean isFeatured;
+    private Double rating;
+    private Long reviewCount;
+    private Integer discountPercent;
+    private LocalDateTime createdAt;
+
+    // Target of the constructor expression in ProductRepository.CARD_SELECT
+    public ProductCardDTO(Long id, Long categoryId, String categoryName, String name,
+                          BigDecimal price, BigDecimal originalPrice, Integer stockQuantity, Integer soldQuantity,
+                          String imageUrl, Boolean isFeatured, LocalDateTime createdAt,
+                          Long ratingSum, Long reviewCount) {
+        this.id = id;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.name = name;
+        this.price = price;
+        this.originalPrice = originalPrice;
+        this.stockQuantity = stockQuantity;
+        this.soldQuantity = soldQuantity;
+        this.imageUrl = imageUrl;
+        this.isFeatured = isFeatured;
+        this.createdAt = createdAt;
+        this.reviewCount = reviewCount != null ? reviewCount : 0L;
+        this.rating = this.reviewCount > 0 && ratingSum != null ? (double) ratingSum / this.reviewCount : 0.0;
+        this.discountPercent = discountPercent(price, originalPrice);
+    }
+
+    private static Integer discountPercent(BigDecimal price, BigDecimal originalPrice) {
+        if (price == null || originalPrice == null || originalPrice.compareTo(price) <= 0) {
+            return null;
+        }
+        return originalPrice.subtract(price)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(originalPrice, 0, RoundingMode.HALF_UP)
+                .intValue();
+    }
+}
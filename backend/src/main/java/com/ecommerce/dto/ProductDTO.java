@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +30,7 @@ public class ProductDTO {
     private Double rating;
     private Long reviewCount;
     private Integer discountPercent;
+    private LocalDateTime createdAt;
     
     public static ProductDTO fromEntity(Product product) {
         ProductDTO dto = ProductDTO.builder()
@@ -43,6 +45,7 @@ public class ProductDTO {
                 .soldQuantity(product.getSoldQuantity())
                 .imageUrl(product.getImageUrl())
                 .isFeatured(product.getIsFeatured())
+                .createdAt(product.getCreatedAt())
                 .build();
         
         if (product.getImages() != null) {
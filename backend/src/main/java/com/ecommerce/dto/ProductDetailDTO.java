@@ -0,0 +1,23 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Everything the product screen needs in one response. Sections that failed or timed out are
+ * left null and listed in {@code unavailable} so the client can fetch them separately.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDetailDTO {
+    private ProductDTO product;
+    private PageResponse<ReviewDTO> reviews;
+    private Boolean inWishlist;
+    private List<ProductCardDTO> related;
+    private List<String> unavailable;
+}
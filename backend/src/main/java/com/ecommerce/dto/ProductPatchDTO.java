@@ -0,0 +1,19 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPatchDTO {
+    private Long id;
+    private BigDecimal price;
+    private BigDecimal originalPrice;
+    private Integer stockQuantity;
+    private Boolean isFeatured;
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * One product line in a bulk import or export file. On import, rows with an id update that
+ * product and leave blank fields untouched; rows without one create a product.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRowDTO {
+    private Long id;
+    private Long categoryId;
+    private String categoryName;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private BigDecimal originalPrice;
+    private Integer stockQuantity;
+    private Integer soldQuantity;
+    private String imageUrl;
+    private Boolean isFeatured;
+    private Boolean isActive;
+}
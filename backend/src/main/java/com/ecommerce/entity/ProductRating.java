@@ -0,0 +1,33 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "product_ratings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRating {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "rating_sum", nullable = false)
+    @Builder.Default
+    private Long ratingSum = 0L;
+
+    @Column(name = "review_count", nullable = false)
+    @Builder.Default
+    private Long reviewCount = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public double getAverageRating() {
+        if (reviewCount == null || reviewCount <= 0) return 0.0;
+        return (double) ratingSum / reviewCount;
+    }
+}
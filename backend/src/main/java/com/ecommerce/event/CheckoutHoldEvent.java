@@ -0,0 +1,15 @@
+package com.ecommerce.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published inside a checkout transaction that claimed a stock hold, so the hold is confirmed
+ * when the order commits and released or handed back when it rolls back.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CheckoutHoldEvent {
+    private final String holdId;
+    private final boolean releaseOnRollback;
+}
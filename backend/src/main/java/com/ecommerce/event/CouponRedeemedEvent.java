@@ -0,0 +1,15 @@
+package com.ecommerce.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published inside a checkout transaction that applies a coupon. Listeners persist the use with
+ * the order and hand the redemption back if the transaction rolls back.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CouponRedeemedEvent {
+    private final Long couponId;
+    private final boolean limited;
+}
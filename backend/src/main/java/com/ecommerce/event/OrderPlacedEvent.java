@@ -0,0 +1,16 @@
+package com.ecommerce.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import java.util.List;
+
+/**
+ * Published when an order is created, carrying its buyer and the distinct products it contains.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderPlacedEvent {
+    private final Long orderId;
+    private final Long userId;
+    private final List<Long> productIds;
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.event;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published after products are created, edited, (de)activated or have their stock,
+ * sold count or rating changed. An empty id set means any product may have changed.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductChangedEvent {
+    private final Set<Long> productIds;
+    
+    public static ProductChangedEvent of(Long... productIds) {
+        return new ProductChangedEvent(Set.of(productIds));
+    }
+    
+    public static ProductChangedEvent of(Collection<Long> productIds) {
+        return new ProductChangedEvent(Set.copyOf(productIds));
+    }
+    
+    public static ProductChangedEvent all() {
+        return new ProductChangedEvent(Set.of());
+    }
+    
+    public boolean isFullRefresh() {
+        return productIds.isEmpty();
+    }
+}
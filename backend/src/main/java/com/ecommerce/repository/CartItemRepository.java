@@ -2,9 +2,7 @@ package com.ecommerce.repository;
 
 import com.ecommerce.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.Optional;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
     void deleteByCartId(Long cartId);
 }
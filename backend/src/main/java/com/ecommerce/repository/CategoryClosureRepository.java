@@ -0,0 +1,40 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.CategoryClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosure.Key> {
+    boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+    
+    // Self link plus one link from every ancestor of the parent
+    @Modifying
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT ancestor_id, :categoryId, depth + 1 FROM category_closure WHERE descendant_id = :parentId " +
+                   "UNION ALL SELECT :categoryId, :categoryId, 0",
+           nativeQuery = true)
+    void insertLeaf(@Param("categoryId") Long categoryId, @Param("parentId") Long parentId);
+    
+    // Drops links from the subtree's current ancestors, keeping links inside the subtree
+    @Modifying
+    @Query(value = "DELETE link FROM category_closure link " +
+                   "JOIN category_closure sub ON sub.descendant_id = link.descendant_id AND sub.ancestor_id = :categoryId " +
+                   "LEFT JOIN category_closure inside ON inside.ancestor_id = :categoryId AND inside.descendant_id = link.ancestor_id " +
+                   "WHERE inside.ancestor_id IS NULL",
+           nativeQuery = true)
+    void detachSubtree(@Param("categoryId") Long categoryId);
+    
+    @Modifying
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT above.ancestor_id, sub.descendant_id, above.depth + sub.depth + 1 " +
+                   "FROM category_closure above JOIN category_closure sub " +
+                   "ON above.descendant_id = :parentId AND sub.ancestor_id = :categoryId",
+           nativeQuery = true)
+    void attachSubtree(@Param("categoryId") Long categoryId, @Param("parentId") Long parentId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM category_closure", nativeQuery = true)
+    void deleteAllLinks();
+}
@@ -1,15 +1,25 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    @EntityGraph(attributePaths = "coupon")
     Page<Order> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+    @EntityGraph(attributePaths = "coupon")
+    Window<Order> findByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+    @EntityGraph(attributePaths = {"items", "coupon"})
+    Optional<Order> findWithItemsById(Long id);
     Optional<Order> findByOrderNumber(String orderNumber);
     Page<Order> findByStatus(Order.OrderStatus status, Pageable pageable);
     List<Order> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
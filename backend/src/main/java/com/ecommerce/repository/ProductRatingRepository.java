@@ -0,0 +1,35 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.ProductRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRatingRepository extends JpaRepository<ProductRating, Long> {
+    List<ProductRating> findByProductIdIn(Collection<Long> productIds);
+    
+    // Atomic upsert so concurrent reviews on the same product never lose an increment
+    @Modifying
+    @Query(value = "INSERT INTO product_ratings (product_id, rating_sum, review_count, updated_at) " +
+                   "VALUES (:productId, :ratingDelta, :countDelta, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE rating_sum = rating_sum + :ratingDelta, " +
+                   "review_count = review_count + :countDelta, updated_at = NOW()",
+           nativeQuery = true)
+    void applyDelta(@Param("productId") Long productId,
+                    @Param("ratingDelta") long ratingDelta,
+                    @Param("countDelta") long countDelta);
+    
+    @Modifying
+    @Query(value = "DELETE FROM product_ratings", nativeQuery = true)
+    void deleteAllRatings();
+    
+    @Modifying
+    @Query(value = "INSERT INTO product_ratings (product_id, rating_sum, review_count, updated_at) " +
+                   "SELECT r.product_id, SUM(r.rating), COUNT(*), NOW() FROM reviews r " +
+                   "WHERE r.is_approved = true GROUP BY r.product_id",
+           nativeQuery = true)
+    int insertFromVisibleReviews();
+}
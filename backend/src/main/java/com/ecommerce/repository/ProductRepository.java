@@ -1,33 +1,64 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.PriceCardDTO;
+import com.ecommerce.dto.ProductCardDTO;
 import com.ecommerce.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    Page<Product> findByIsActiveTrue(Pageable pageable);
+    String CARD_CONSTRUCTOR = "new com.ecommerce.dto.ProductCardDTO(p.id, c.id, c.name, p.name, p.price, p.originalPrice, "
+            + "p.stockQuantity, p.soldQuantity, p.imageUrl, p.isFeatured, p.createdAt, r.ratingSum, r.reviewCount)";
     
-    Page<Product> findByIsActiveFalse(Pageable pageable);
+    String CARD_SELECT = "SELECT " + CARD_CONSTRUCTOR
+            + " FROM Product p JOIN p.category c LEFT JOIN ProductRating r ON r.productId = p.id ";
     
-    Page<Product> findByCategoryIdAndIsActiveTrue(Long categoryId, Pageable pageable);
+    @EntityGraph(attributePaths = {"category", "images"})
+    Optional<Product> findWithDetailsById(Long id);
     
-    List<Product> findByIsFeaturedTrueAndIsActiveTrue();
+    Window<Product> findByIsActiveTrue(ScrollPosition position, Sort sort, Limit limit);
     
-    @Query("SELECT p FROM Product p WHERE p.isActive = true AND " +
-           "(LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    Page<Product> searchProducts(@Param("keyword") String keyword, Pageable pageable);
+    @Query(value = CARD_SELECT + "WHERE p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductCardDTO> findActiveCards(Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.soldQuantity DESC")
-    List<Product> findTopSelling(Pageable pageable);
+    @Query(value = CARD_SELECT + "WHERE p.isActive = false",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = false")
+    Page<ProductCardDTO> findInactiveCards(Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.createdAt DESC")
-    List<Product> findNewArrivals(Pageable pageable);
+    @Query(value = CARD_SELECT + "JOIN CategoryClosure cc ON cc.descendantId = c.id "
+                   + "WHERE cc.ancestorId = :categoryId AND p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p JOIN CategoryClosure cc ON cc.descendantId = p.category.id "
+                   + "WHERE cc.ancestorId = :categoryId AND p.isActive = true")
+    Page<ProductCardDTO> findActiveCardsInCategoryTree(@Param("categoryId") Long categoryId, Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.originalPrice IS NOT NULL AND p.originalPrice > p.price")
-    List<Product> findOnSale(Pageable pageable);
+    @Query(CARD_SELECT + "WHERE p.isActive = true")
+    List<ProductCardDTO> findAllActiveCards();
+    
+    @Query(CARD_SELECT + "WHERE p.isActive = true AND p.id IN :ids")
+    List<ProductCardDTO> findActiveCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(CARD_SELECT + "WHERE p.id IN :ids")
+    List<ProductCardDTO> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT new com.ecommerce.dto.PriceCardDTO(p.id, p.name, p.imageUrl, p.price, p.originalPrice, "
+           + "p.stockQuantity, p.isActive) FROM Product p WHERE p.id IN :ids")
+    List<PriceCardDTO> findPriceCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.isActive = true")
+    List<Product> findAllActiveWithCategory();
+    
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,20 +1,21 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
+    @EntityGraph(attributePaths = "user")
     Page<Review> findByProductIdAndIsVisibleTrue(Long productId, Pageable pageable);
     
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.id = :productId AND r.isVisible = true")
-    Double getAverageRatingByProductId(@Param("productId") Long productId);
-    
-    @Query("SELECT COUNT(r) FROM Review r WHERE r.product.id = :productId AND r.isVisible = true")
-    Long countByProductId(@Param("productId") Long productId);
+    @EntityGraph(attributePaths = "user")
+    Window<Review> findByProductIdAndIsVisibleTrue(Long productId, ScrollPosition position, Sort sort, Limit limit);
     
     boolean existsByUserIdAndProductId(Long userId, Long productId);
 }
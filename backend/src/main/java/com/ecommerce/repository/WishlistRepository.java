@@ -1,12 +1,20 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.ProductCardDTO;
 import com.ecommerce.entity.Wishlist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
 public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
     List<Wishlist> findByUserId(Long userId);
+    
+    @Query("SELECT " + ProductRepository.CARD_CONSTRUCTOR + " FROM Wishlist w JOIN w.product p JOIN p.category c "
+            + "LEFT JOIN ProductRating r ON r.productId = p.id WHERE w.user.id = :userId ORDER BY w.id")
+    List<ProductCardDTO> findProductCardsByUserId(@Param("userId") Long userId);
+    
     Optional<Wishlist> findByUserIdAndProductId(Long userId, Long productId);
     boolean existsByUserIdAndProductId(Long userId, Long productId);
     void deleteByUserIdAndProductId(Long userId, Long productId);
@@ -2,7 +2,6 @@ package com.ecommerce.service;
 
 import com.ecommerce.dto.AnalyticsDTO;
 import com.ecommerce.entity.Order;
-import com.ecommerce.entity.Product;
 import com.ecommerce.entity.User;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
@@ -23,6 +22,7 @@ public class AnalyticsService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final SalesLeaderboard salesLeaderboard;
     
     public AnalyticsDTO getAnalytics(String period) {
         LocalDateTime startDate = getStartDate(period);
@@ -185,18 +185,14 @@ public class AnalyticsService {
     }
     
     private List<AnalyticsDTO.TopProductDTO> getTopProducts(int limit) {
-        List<Product> products = productRepository.findAll();
-        
-        return products.stream()
-            .sorted((p1, p2) -> Integer.compare(p2.getSoldQuantity(), p1.getSoldQuantity()))
-            .limit(limit)
+        return salesLeaderboard.top(limit).stream()
             .map(p -> AnalyticsDTO.TopProductDTO.builder()
-                .id(p.getId())
-                .name(p.getName())
-                .imageUrl(p.getImageUrl())
-                .price(p.getPrice())
-                .soldQuantity(p.getSoldQuantity())
-                .revenue(p.getPrice().multiply(BigDecimal.valueOf(p.getSoldQuantity())))
+                .id(p.productId())
+                .name(p.name())
+                .imageUrl(p.imageUrl())
+                .price(p.price())
+                .soldQuantity(p.soldQuantity())
+                .revenue(p.price().multiply(BigDecimal.valueOf(p.soldQuantity())))
                 .build())
             .collect(Collectors.toList());
     }
@@ -1,110 +1,157 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CartBatchRequest;
 import com.ecommerce.dto.CartDTO;
-import com.ecommerce.entity.Cart;
-import com.ecommerce.entity.CartItem;
-import com.ecommerce.entity.Product;
-import com.ecommerce.entity.User;
-import com.ecommerce.repository.CartItemRepository;
-import com.ecommerce.repository.CartRepository;
-import com.ecommerce.repository.ProductRepository;
-import com.ecommerce.repository.UserRepository;
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.PriceCardDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
     
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final CartStore cartStore;
+    private final PriceCardCache priceCardCache;
     
     public CartDTO getCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        return CartDTO.fromEntity(cart);
+        CartStore.CartLines cart = cartStore.get(userId);
+        return toDTO(cart, loadProducts(cart, List.of()));
     }
     
-    @Transactional
     public CartDTO addToCart(Long userId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        Map<Long, PriceCardDTO> products = loadProducts(cartStore.get(userId), List.of(productId));
+        PriceCardDTO product = products.get(productId);
+        if (product == null) {
+            throw new RuntimeException("Product not found");
+        }
         
         if (product.getStockQuantity() < quantity) {
             throw new RuntimeException("Insufficient stock");
         }
         
-        CartItem existingItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElse(null);
-        
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-            cartItemRepository.save(existingItem);
-        } else {
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(quantity)
-                    .build();
-            cart.getItems().add(newItem);
-            cartItemRepository.save(newItem);
-        }
-        
-        return CartDTO.fromEntity(cartRepository.findById(cart.getId()).get());
+        CartStore.CartLines cart = cartStore.update(userId, lines -> lines.merge(productId, quantity, Integer::sum));
+        return toDTO(cart, products);
     }
     
-    @Transactional
     public CartDTO updateCartItem(Long userId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(userId);
+        Map<Long, PriceCardDTO> products = loadProducts(cartStore.get(userId), List.of(productId));
         
-        CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
-        
-        if (quantity <= 0) {
-            cart.getItems().remove(item);
-            cartItemRepository.delete(item);
-        } else {
-            Product product = item.getProduct();
-            if (product.getStockQuantity() < quantity) {
-                throw new RuntimeException("Insufficient stock");
+        CartStore.CartLines cart = cartStore.update(userId, lines -> {
+            if (!lines.containsKey(productId)) {
+                throw new RuntimeException("Item not found in cart");
             }
-            item.setQuantity(quantity);
-            cartItemRepository.save(item);
-        }
+            if (quantity <= 0) {
+                lines.remove(productId);
+            } else {
+                PriceCardDTO product = products.get(productId);
+                if (product == null || product.getStockQuantity() < quantity) {
+                    throw new RuntimeException("Insufficient stock");
+                }
+                lines.put(productId, quantity);
+            }
+        });
         
-        return CartDTO.fromEntity(cartRepository.findById(cart.getId()).get());
+        return toDTO(cart, products);
     }
     
-    @Transactional
     public CartDTO removeFromCart(Long userId, Long productId) {
-        Cart cart = getOrCreateCart(userId);
+        CartStore.CartLines cart = cartStore.update(userId, lines -> {
+            if (lines.remove(productId) == null) {
+                throw new RuntimeException("Item not found in cart");
+            }
+        });
+        
+        return toDTO(cart, loadProducts(cart, List.of()));
+    }
+    
+    public void clearCart(Long userId) {
+        cartStore.update(userId, Map::clear);
+    }
+    
+    public CartDTO applyBatch(Long userId, List<CartBatchRequest.Operation> operations) {
+        for (CartBatchRequest.Operation operation : operations) {
+            if (operation.getType() != CartBatchRequest.Type.REMOVE && operation.getQuantity() == null) {
+                throw new RuntimeException("Quantity is required for " + operation.getType() + " of product " + operation.getProductId());
+            }
+            if (operation.getType() == CartBatchRequest.Type.ADD && operation.getQuantity() <= 0) {
+                throw new RuntimeException("Quantity must be positive for ADD of product " + operation.getProductId());
+            }
+        }
         
-        CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
+        Set<Long> touched = operations.stream()
+                .map(CartBatchRequest.Operation::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, PriceCardDTO> products = loadProducts(cartStore.get(userId), touched);
         
-        cart.getItems().remove(item);
-        cartItemRepository.delete(item);
+        // All operations land together or not at all; stock is checked against the final quantities
+        CartStore.CartLines cart = cartStore.update(userId, lines -> {
+            for (CartBatchRequest.Operation operation : operations) {
+                Long productId = operation.getProductId();
+                switch (operation.getType()) {
+                    case ADD -> lines.merge(productId, operation.getQuantity(), Integer::sum);
+                    case SET -> {
+                        if (operation.getQuantity() <= 0) {
+                            lines.remove(productId);
+                        } else {
+                            lines.put(productId, operation.getQuantity());
+                        }
+                    }
+                    case REMOVE -> lines.remove(productId);
+                }
+            }
+            for (Long productId : touched) {
+                Integer quantity = lines.get(productId);
+                if (quantity == null) {
+                    continue;
+                }
+                PriceCardDTO product = products.get(productId);
+                if (product == null) {
+                    throw new RuntimeException("Product not found: " + productId);
+                }
+                if (product.getStockQuantity() < quantity) {
+                    throw new RuntimeException("Insufficient stock for product " + productId);
+                }
+            }
+        });
         
-        return CartDTO.fromEntity(cartRepository.findById(cart.getId()).get());
+        return toDTO(cart, products);
     }
     
-    @Transactional
-    public void clearCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        cart.getItems().clear();
-        cartItemRepository.deleteByCartId(cart.getId());
+    // Served from the price card cache; only products it has not seen yet are queried, in one go
+    private Map<Long, PriceCardDTO> loadProducts(CartStore.CartLines cart, Collection<Long> extraProductIds) {
+        Set<Long> ids = new HashSet<>(cart.quantities().keySet());
+        ids.addAll(extraProductIds);
+        return priceCardCache.getAll(ids);
     }
     
-    private Cart getOrCreateCart(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    User user = userRepository.findById(userId)
-                            .orElseThrow(() -> new RuntimeException("User not found"));
-                    Cart newCart = Cart.builder().user(user).build();
-                    return cartRepository.save(newCart);
-                });
+    private CartDTO toDTO(CartStore.CartLines cart, Map<Long, PriceCardDTO> products) {
+        // A concurrent request may have added a line after the products were loaded
+        if (!products.keySet().containsAll(cart.quantities().keySet())) {
+            products = new HashMap<>(products);
+            products.putAll(loadProducts(cart, List.of()));
+        }
+        
+        List<CartItemDTO> items = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : cart.quantities().entrySet()) {
+            PriceCardDTO product = products.get(line.getKey());
+            if (product != null) {
+                items.add(CartItemDTO.of(product, line.getValue()));
+            }
+        }
+        
+        BigDecimal total = items.stream()
+                .map(CartItemDTO::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        
+        return CartDTO.builder()
+                .id(cart.cartId())
+                .items(items)
+                .totalAmount(total)
+                .totalItems(items.size())
+                .build();
     }
 }
@@ -0,0 +1,377 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Cart;
+import com.ecommerce.entity.User;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Write-behind store for cart contents. Reads and mutations are served from memory under a
+ * per-cart lock; a scheduled task writes the difference against what {@code cart_items} holds,
+ * for every dirty cart in one transaction, so repeated taps on the same line collapse into one
+ * row write. Pending changes are flushed on shutdown and before checkout reads the cart.
+ * <p>
+ * The store assumes a user's requests reach one instance, as the in-memory state is not shared.
+ */
+@Component
+@Slf4j
+public class CartStore {
+
+    private static final String UPSERT_SQL = "INSERT INTO cart_items (cart_id, product_id, quantity, created_at) "
+            + "VALUES (?, ?, ?, NOW()) ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)";
+    private static final int UNKNOWN_QUANTITY = -1;
+    private static final String DELETE_SQL = "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ?";
+
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final long idleEvictionMs;
+
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+
+    public CartStore(CartRepository cartRepository,
+                     UserRepository userRepository,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${app.cart.idle-eviction-ms:1800000}") long idleEvictionMs) {
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Flushes commit on their own, whatever transaction the caller is in
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.idleEvictionMs = idleEvictionMs;
+    }
+
+    public CartLines get(Long userId) {
+        return withCart(userId, CartState::snapshot);
+    }
+
+    /**
+     * Applies the change to a copy of the cart's lines (product id to quantity, in the order they
+     * were added). If the change throws, the cart is left as it was.
+     */
+    public CartLines update(Long userId, Consumer<Map<Long, Integer>> change) {
+        return withCart(userId, state -> {
+            Map<Long, Integer> lines = new LinkedHashMap<>(state.lines);
+            change.accept(lines);
+            if (!lines.equals(state.lines)) {
+                state.lines = lines;
+                state.version++;
+            }
+            return state.snapshot();
+        });
+    }
+
+    /**
+     * Writes the user's pending changes now, so queries against {@code cart_items} see them.
+     */
+    public void flush(Long userId) {
+        flushUsers(List.of(userId));
+    }
+    
+    /**
+     * Writes the pending changes of several users in one transaction.
+     */
+    public void flushUsers(Collection<Long> userIds) {
+        List<CartState> states = userIds.stream()
+                .map(carts::get)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!states.isEmpty()) {
+            flush(states);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval-ms:2000}")
+    public void flushDirty() {
+        try {
+            flush(carts.values());
+        } catch (RuntimeException e) {
+            log.warn("Cart flush failed, changes stay pending until the next run", e);
+        }
+        // Only carts with nothing pending are evicted, so this is safe after a failed flush too
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush(carts.values());
+            log.info("Flushed {} carts on shutdown", carts.size());
+        } catch (RuntimeException e) {
+            log.error("Cart flush on shutdown failed, pending cart changes are lost", e);
+        }
+    }
+
+    // Checkout deleted the cart rows in its own transaction. Only the ordered products leave the
+    // cart: a line added while the order was being placed was not ordered and stays. Every row the
+    // store knew of is marked unknown, so the next flush deletes the ordered ones again and writes
+    // the remaining lines back.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        CartState state = carts.get(event.getUserId());
+        if (state == null) {
+            return;
+        }
+        state.lock.lock();
+        try {
+            Map<Long, Integer> unknown = new HashMap<>();
+            state.persisted.keySet().forEach(productId -> unknown.put(productId, UNKNOWN_QUANTITY));
+            state.persisted = unknown;
+            Map<Long, Integer> lines = new LinkedHashMap<>(state.lines);
+            lines.keySet().removeAll(event.getProductIds());
+            state.lines = lines;
+            state.version++;
+            state.epoch++;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private <T> T withCart(Long userId, Function<CartState, T> action) {
+        while (true) {
+            CartState state = carts.computeIfAbsent(userId, id -> new CartState());
+            state.lock.lock();
+            try {
+                if (state.evicted) {
+                    continue;
+                }
+                if (state.cartId == null) {
+                    load(userId, state);
+                }
+                state.lastAccess = System.currentTimeMillis();
+                return action.apply(state);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    private void load(Long userId, CartState state) {
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseGet(() -> {
+                    User user = userRepository.findById(userId)
+                            .orElseThrow(() -> new RuntimeException("User not found"));
+                    return cartRepository.save(Cart.builder().user(user).build()).getId();
+                });
+
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE cart_id = ? ORDER BY id",
+                rs -> {
+                    lines.put(rs.getLong(1), rs.getInt(2));
+                },
+                cartId);
+        state.lines = lines;
+        state.persisted = lines;
+        state.cartId = cartId;
+    }
+
+    /**
+     * Serialized so two flushes never diff against the same persisted state. If the database
+     * rejects the batch, the carts are written one at a time so a single bad row only holds back
+     * its own cart.
+     */
+    private synchronized void flush(Collection<CartState> states) {
+        List<Pending> pending = new ArrayList<>();
+        for (CartState state : states) {
+            state.lock.lock();
+            try {
+                if (state.cartId != null && state.version != state.flushedVersion) {
+                    pending.add(new Pending(state, state.version, state.epoch, state.lines, state.persisted));
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            write(pending);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Cart flush rejected, writing the {} carts one at a time", pending.size(), e);
+            pending.forEach(this::writeAlone);
+            return;
+        }
+        pending.forEach(p -> markFlushed(p, Set.of()));
+        log.debug("Flushed {} carts", pending.size());
+    }
+
+    private void write(List<Pending> pending) {
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Pending p : pending) {
+            upserts.addAll(p.upserts());
+            deletes.addAll(p.deletes());
+        }
+        flushTransaction.executeWithoutResult(status -> {
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+            }
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            }
+        });
+    }
+
+    /**
+     * Writes one cart, and if that is rejected too, each of its lines on its own. A line the
+     * database keeps rejecting (its product was deleted, say) would fail every flush, so it is
+     * dropped from the cart.
+     */
+    private void writeAlone(Pending p) {
+        try {
+            write(List.of(p));
+            markFlushed(p, Set.of());
+            return;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Flush of cart {} rejected, writing its lines one at a time", p.state().cartId);
+        }
+
+        Set<Long> rejected = new HashSet<>();
+        for (Object[] delete : p.deletes()) {
+            if (!writeLine(DELETE_SQL, delete)) {
+                rejected.add((Long) delete[1]);
+            }
+        }
+        for (Object[] upsert : p.upserts()) {
+            if (!writeLine(UPSERT_SQL, upsert)) {
+                rejected.add((Long) upsert[1]);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            log.warn("Dropped cart {} lines for products {}, rejected by the database", p.state().cartId, rejected);
+        }
+        markFlushed(p, rejected);
+    }
+
+    private boolean writeLine(String sql, Object[] args) {
+        try {
+            flushTransaction.executeWithoutResult(status -> jdbcTemplate.update(sql, args));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    // Rejected lines keep their old persisted value, and are taken out of the cart
+    private void markFlushed(Pending p, Set<Long> rejected) {
+        CartState state = p.state();
+        state.lock.lock();
+        try {
+            if (state.epoch != p.epoch()) {
+                // Checkout deleted the rows while this flush was writing, which may have put some
+                // back; they are marked unknown as well rather than overwriting checkout's markers
+                Map<Long, Integer> unknown = new HashMap<>(state.persisted);
+                p.lines().keySet().forEach(productId -> unknown.put(productId, UNKNOWN_QUANTITY));
+                state.persisted = unknown;
+            } else if (rejected.isEmpty()) {
+                state.persisted = p.lines();
+            } else {
+                Map<Long, Integer> persisted = new HashMap<>(p.lines());
+                Map<Long, Integer> lines = new LinkedHashMap<>(state.lines);
+                for (Long productId : rejected) {
+                    Integer before = p.persisted().get(productId);
+                    if (before != null) {
+                        persisted.put(productId, before);
+                    } else {
+                        persisted.remove(productId);
+                    }
+                    if (p.lines().containsKey(productId)) {
+                        lines.remove(productId);
+                    }
+                }
+                state.persisted = persisted;
+                if (!lines.equals(state.lines)) {
+                    state.lines = lines;
+                    state.version++;
+                }
+            }
+            state.flushedVersion = p.version();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        carts.forEach((userId, state) -> {
+            if (state.lastAccess >= cutoff || !state.lock.tryLock()) {
+                return;
+            }
+            try {
+                if (state.lastAccess < cutoff && state.version == state.flushedVersion) {
+                    state.evicted = true;
+                    carts.remove(userId, state);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        });
+    }
+
+    public record CartLines(Long cartId, Map<Long, Integer> quantities) {
+    }
+
+    private record Pending(CartState state, long version, long epoch, Map<Long, Integer> lines, Map<Long, Integer> persisted) {
+
+        List<Object[]> upserts() {
+            List<Object[]> upserts = new ArrayList<>();
+            lines.forEach((productId, quantity) -> {
+                if (!quantity.equals(persisted.get(productId))) {
+                    upserts.add(new Object[]{state.cartId, productId, quantity});
+                }
+            });
+            return upserts;
+        }
+
+        List<Object[]> deletes() {
+            List<Object[]> deletes = new ArrayList<>();
+            persisted.keySet().stream()
+                    .filter(productId -> !lines.containsKey(productId))
+                    .forEach(productId -> deletes.add(new Object[]{state.cartId, productId}));
+            return deletes;
+        }
+    }
+
+    /**
+     * Line maps are replaced rather than modified, so a map handed to a flush or a snapshot never
+     * changes underneath it. Guarded by {@code lock}.
+     */
+    private static final class CartState {
+        final ReentrantLock lock = new ReentrantLock();
+        Long cartId;
+        Map<Long, Integer> lines = Map.of();
+        Map<Long, Integer> persisted = Map.of();
+        long version;
+        long flushedVersion;
+        // Bumped when checkout clears the cart rows
+        long epoch;
+        volatile long lastAccess;
+        boolean evicted;
+
+        CartLines snapshot() {
+            return new CartLines(cartId, Collections.unmodifiableMap(lines));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Applies product changes to the in-memory catalog views off the request thread. A committed
+ * change only queues its product ids; one thread takes everything queued so far as a single
+ * change, lets each view reload just those products, and then moves the catalog versions so a
+ * new tag is only handed out once every view shows the change.
+ * <p>
+ * Because every view is updated from this one thread, updates to the same product are applied
+ * in order, and a burst of checkouts costs one reload per view rather than one per order.
+ * <p>
+ * Writes made by other instances publish no event here, so the tables are also polled: products
+ * and ratings whose {@code updated_at} moved are queued like local changes, and a change in the
+ * set of product ids (a hard delete) or in the categories queues a full refresh. The poll looks
+ * back {@code sync-overlap-ms} past the newest timestamp it saw, to cover transactions that
+ * commit late and clock skew between instances.
+ */
+@Component
+@Slf4j
+public class CatalogChangeApplier {
+
+    // Beyond this many products a full rebuild is cheaper than reloading them one set at a time
+    private static final int FULL_REFRESH_THRESHOLD = 5000;
+
+    private static final String PRODUCT_MEMBERSHIP_SQL = "SELECT COUNT(*), COALESCE(SUM(id), 0), COALESCE(MAX(id), 0) FROM products";
+    private static final String CATEGORY_CHECKSUM_SQL = "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS('|', id, parent_id, "
+            + "name, description, image_url, is_active))), 0) FROM categories";
+    private static final String CHANGED_PRODUCTS_SQL = "SELECT id, updated_at FROM products WHERE updated_at >= ?";
+    private static final String CHANGED_RATINGS_SQL = "SELECT product_id, updated_at FROM product_ratings WHERE updated_at >= ?";
+    private static final String PRODUCTS_WATERMARK_SQL = "SELECT MAX(updated_at) FROM products";
+    private static final String RATINGS_WATERMARK_SQL = "SELECT MAX(updated_at) FROM product_ratings";
+
+    private final PriceCardCache priceCardCache;
+    private final InventoryReservations inventoryReservations;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final SalesLeaderboard salesLeaderboard;
+    private final CategoryStatsIndex categoryStatsIndex;
+    private final CatalogVersionService catalogVersionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor catalogChangeExecutor;
+    private final TransactionTemplate readTransaction;
+    private final long syncOverlapMs;
+
+    // Guarded by this
+    private final Set<Long> pendingIds = new HashSet<>();
+    private boolean pendingFullRefresh;
+    private boolean scheduled;
+
+    // Set at startup, then only touched by the scheduled poll
+    private volatile Timestamp productsWatermark;
+    private volatile Timestamp ratingsWatermark;
+    private volatile long[] productMembership;
+    private volatile long[] categoryChecksum;
+
+    public CatalogChangeApplier(PriceCardCache priceCardCache,
+                                InventoryReservations inventoryReservations,
+                                CatalogSnapshotService catalogSnapshotService,
+                                ProductSearchIndex productSearchIndex,
+                                ProductFacetIndex productFacetIndex,
+                                ProductSuggestIndex productSuggestIndex,
+                                SalesLeaderboard salesLeaderboard,
+                                CategoryStatsIndex categoryStatsIndex,
+                                CatalogVersionService catalogVersionService,
+                                JdbcTemplate jdbcTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                @Qualifier("catalogChangeExecutor") Executor catalogChangeExecutor,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.catalog.sync-overlap-ms:30000}") long syncOverlapMs) {
+        this.priceCardCache = priceCardCache;
+        this.inventoryReservations = inventoryReservations;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.productSuggestIndex = productSuggestIndex;
+        this.salesLeaderboard = salesLeaderboard;
+        this.categoryStatsIndex = categoryStatsIndex;
+        this.catalogVersionService = catalogVersionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.catalogChangeExecutor = catalogChangeExecutor;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.syncOverlapMs = syncOverlapMs;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        enqueue(event.getProductIds(), event.isFullRefresh());
+    }
+
+    // The views were built from the tables at startup; polling starts from what they saw
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        readTransaction.executeWithoutResult(status -> {
+            productsWatermark = jdbcTemplate.queryForObject(PRODUCTS_WATERMARK_SQL, Timestamp.class);
+            ratingsWatermark = jdbcTemplate.queryForObject(RATINGS_WATERMARK_SQL, Timestamp.class);
+            productMembership = queryLongs(PRODUCT_MEMBERSHIP_SQL);
+            categoryChecksum = queryLongs(CATEGORY_CHECKSUM_SQL);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.sync-interval-ms:15000}",
+               initialDelayString = "${app.catalog.sync-interval-ms:15000}")
+    public void pollForRemoteChanges() {
+        if (productMembership == null) {
+            return;
+        }
+        Set<Long> changed = new HashSet<>();
+        boolean[] fullRefresh = {false};
+        boolean[] categoriesChanged = {false};
+        readTransaction.executeWithoutResult(status -> {
+            productsWatermark = collectChanged(CHANGED_PRODUCTS_SQL, productsWatermark, changed);
+            ratingsWatermark = collectChanged(CHANGED_RATINGS_SQL, ratingsWatermark, changed);
+
+            // Inserts show up as new ids above the old maximum; anything else moving the id set is a delete
+            long[] membership = queryLongs(PRODUCT_MEMBERSHIP_SQL);
+            long insertedCount = 0;
+            long insertedSum = 0;
+            for (Long id : changed) {
+                if (id > productMembership[2]) {
+                    insertedCount++;
+                    insertedSum += id;
+                }
+            }
+            fullRefresh[0] = membership[0] != productMembership[0] + insertedCount
+                    || membership[1] != productMembership[1] + insertedSum;
+            productMembership = membership;
+
+            long[] checksum = queryLongs(CATEGORY_CHECKSUM_SQL);
+            categoriesChanged[0] = !Arrays.equals(checksum, categoryChecksum);
+            categoryChecksum = checksum;
+        });
+
+        if (categoriesChanged[0]) {
+            eventPublisher.publishEvent(new CategoryChangedEvent(null));
+        }
+        boolean full = fullRefresh[0] || categoriesChanged[0] || changed.size() > FULL_REFRESH_THRESHOLD;
+        enqueue(full ? Set.of() : changed, full);
+    }
+
+    private void enqueue(Collection<Long> productIds, boolean fullRefresh) {
+        synchronized (this) {
+            pendingFullRefresh |= fullRefresh;
+            pendingIds.addAll(productIds);
+            if (scheduled || (!pendingFullRefresh && pendingIds.isEmpty())) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            catalogChangeExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                scheduled = false;
+            }
+            log.warn("Catalog change not applied, executor is shutting down");
+        }
+    }
+
+    private void drain() {
+        ProductChangedEvent change;
+        synchronized (this) {
+            change = pendingFullRefresh ? ProductChangedEvent.all() : ProductChangedEvent.of(pendingIds);
+            pendingIds.clear();
+            pendingFullRefresh = false;
+            scheduled = false;
+        }
+
+        long started = System.currentTimeMillis();
+        // Stock first: checkout is gated on it
+        apply("price cards", change, priceCardCache::applyProductChange);
+        apply("stock gate", change, inventoryReservations::applyProductChange);
+        apply("catalog snapshot", change, catalogSnapshotService::applyProductChange);
+        apply("search index", change, productSearchIndex::applyProductChange);
+        apply("facet index", change, productFacetIndex::applyProductChange);
+        apply("suggest index", change, productSuggestIndex::applyProductChange);
+        apply("sales leaderboard", change, salesLeaderboard::applyProductChange);
+        boolean[] categoriesMoved = {change.isFullRefresh()};
+        apply("category stats", change, c -> categoriesMoved[0] |= categoryStatsIndex.applyProductChange(c));
+        catalogVersionService.productsChanged(categoriesMoved[0]);
+        log.debug("Applied change to {} products in {} ms",
+                change.isFullRefresh() ? "all" : change.getProductIds().size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Each view reads in its own short transaction, so one failing view does not hold back the
+     * others. A failure queues a full refresh, which the next change or poll picks up.
+     */
+    private void apply(String view, ProductChangedEvent change, Consumer<ProductChangedEvent> action) {
+        try {
+            readTransaction.executeWithoutResult(status -> action.accept(change));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingFullRefresh = true;
+            }
+            log.warn("Failed to apply product change to the {}, a full refresh is queued", view, e);
+        }
+    }
+
+    /**
+     * Adds the ids of rows updated since the watermark, less the overlap, and returns the new
+     * watermark: the newest timestamp seen, or the old one when nothing matched.
+     */
+    private Timestamp collectChanged(String sql, Timestamp watermark, Set<Long> changed) {
+        Timestamp since = watermark != null ? new Timestamp(watermark.getTime() - syncOverlapMs) : new Timestamp(0);
+        Timestamp[] newest = {watermark};
+        jdbcTemplate.query(sql, rs -> {
+            changed.add(rs.getLong(1));
+            Timestamp updatedAt = rs.getTimestamp(2);
+            if (newest[0] == null || updatedAt.after(newest[0])) {
+                newest[0] = updatedAt;
+            }
+        }, since);
+        return newest[0];
+    }
+
+    private long[] queryLongs(String sql) {
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            long[] values = new long[rs.getMetaData().getColumnCount()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = rs.getLong(i + 1);
+            }
+            return values;
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductCardDTO;
+import lombok.Getter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of the active catalog with the home-screen rails already sorted.
+ * A new instance is built and swapped in whenever products change.
+ */
+@Getter
+public class CatalogSnapshot {
+    private final long version;
+    private final LocalDateTime builtAt;
+    private final Map<Long, ProductCardDTO> products;
+    private final List<ProductCardDTO> featured;
+    private final List<ProductCardDTO> newArrivals;
+    private final List<ProductCardDTO> onSale;
+    
+    CatalogSnapshot(long version, Collection<ProductCardDTO> activeProducts) {
+        this.version = version;
+        this.builtAt = LocalDateTime.now();
+        this.products = activeProducts.stream()
+                .collect(Collectors.toUnmodifiableMap(ProductCardDTO::getId, Function.identity()));
+        
+        Comparator<ProductCardDTO> byId = Comparator.comparing(ProductCardDTO::getId);
+        this.featured = activeProducts.stream()
+                .filter(p -> Boolean.TRUE.equals(p.getIsFeatured()))
+                .sorted(byId)
+                .toList();
+        this.newArrivals = activeProducts.stream()
+                .sorted(Comparator.comparing(ProductCardDTO::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(byId.reversed()))
+                .toList();
+        this.onSale = activeProducts.stream()
+                .filter(CatalogSnapshot::isOnSale)
+                .sorted(byId)
+                .toList();
+    }
+    
+    public static List<ProductCardDTO> limit(List<ProductCardDTO> rail, int limit) {
+        return rail.subList(0, Math.max(0, Math.min(limit, rail.size())));
+    }
+    
+    private static boolean isOnSale(ProductCardDTO product) {
+        BigDecimal originalPrice = product.getOriginalPrice();
+        return originalPrice != null && product.getPrice() != null && originalPrice.compareTo(product.getPrice()) > 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductCardDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSnapshotService {
+    
+    private final ProductRepository productRepository;
+    
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+    
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : rebuild(false);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild(false);
+    }
+    
+    /**
+     * Called by {@link CatalogChangeApplier}. Only the changed products are reloaded; the rails
+     * are re-sorted from the cards already in memory.
+     */
+    void applyProductChange(ProductChangedEvent event) {
+        synchronized (rebuildLock) {
+            CatalogSnapshot snapshot = current.get();
+            if (snapshot == null || event.isFullRefresh()) {
+                rebuild(true);
+                return;
+            }
+            
+            Map<Long, ProductCardDTO> products = new HashMap<>(snapshot.getProducts());
+            products.keySet().removeAll(event.getProductIds());
+            for (ProductCardDTO card : productRepository.findActiveCardsByIdIn(event.getProductIds())) {
+                products.put(card.getId(), card);
+            }
+            current.set(new CatalogSnapshot(snapshot.getVersion() + 1, products.values()));
+            log.debug("Catalog snapshot v{} patched for {} products", snapshot.getVersion() + 1, event.getProductIds().size());
+        }
+    }
+    
+    /**
+     * Readers that find no snapshot yet wait for the first one instead of each loading the catalog.
+     */
+    private CatalogSnapshot rebuild(boolean force) {
+        synchronized (rebuildLock) {
+            CatalogSnapshot snapshot = current.get();
+            if (snapshot != null && !force) {
+                return snapshot;
+            }
+            
+            long version = snapshot != null ? snapshot.getVersion() + 1 : 1;
+            List<ProductCardDTO> cards = productRepository.findAllActiveCards();
+            
+            CatalogSnapshot built = new CatalogSnapshot(version, cards);
+            current.set(built);
+            log.debug("Catalog snapshot v{} built with {} active products", version, cards.size());
+            return built;
+        }
+    }
+}
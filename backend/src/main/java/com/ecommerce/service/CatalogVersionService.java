@@ -0,0 +1,82 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.CategoryChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version counters for the public catalog, used as validators for conditional GETs.
+ * Counters are local to this instance, so every tag also carries a random id picked at boot:
+ * another instance, or this one after a restart, can reach the same counter for different
+ * content, but never hands out the same tag.
+ * Last-Modified only has whole seconds, so the time is rounded up: a change is never dated
+ * earlier than the second a client may already have seen.
+ */
+@Service
+public class CatalogVersionService {
+    
+    private final AtomicReference<Version> products;
+    private final AtomicReference<Version> categories;
+    
+    public CatalogVersionService() {
+        long now = roundUpToSecond(System.currentTimeMillis());
+        String bootId = Long.toUnsignedString(new SecureRandom().nextLong(), 36);
+        this.products = new AtomicReference<>(new Version("products-" + bootId, 0, now));
+        this.categories = new AtomicReference<>(new Version("categories-" + bootId, 0, now));
+    }
+    
+    public Version products() {
+        return products.get();
+    }
+    
+    public Version categories() {
+        return categories.get();
+    }
+    
+    /**
+     * Called by {@link CatalogChangeApplier} once every view shows the change, so a new tag is never
+     * handed out together with content that predates it. Category responses carry product counts
+     * and price ranges, so their tag moves too when those changed.
+     */
+    void productsChanged(boolean categoryStatsChanged) {
+        products.updateAndGet(Version::next);
+        if (categoryStatsChanged) {
+            categories.updateAndGet(Version::next);
+        }
+    }
+    
+    // Only once committed, and after the category caches have dropped what they held
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categories.updateAndGet(Version::next);
+    }
+    
+    public record Version(String scope, long counter, long lastModified) {
+        
+        public String etag() {
+            return "\"" + scope + "-" + counter + "\"";
+        }
+        
+        /**
+         * Sets the ETag and Last-Modified headers and returns true when the client's copy is
+         * current, in which case the response is already a 304 and the caller should return null.
+         */
+        public boolean checkNotModified(WebRequest request) {
+            return request.checkNotModified(etag(), lastModified);
+        }
+        
+        Version next() {
+            return new Version(scope, counter + 1, Math.max(roundUpToSecond(System.currentTimeMillis()), lastModified));
+        }
+    }
+    
+    private static long roundUpToSecond(long millis) {
+        return (millis + 999) / 1000 * 1000;
+    }
+}
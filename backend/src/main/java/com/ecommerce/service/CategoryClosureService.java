@@ -0,0 +1,75 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Category;
+import com.ecommerce.repository.CategoryClosureRepository;
+import com.ecommerce.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the category closure table. Writes run inside the caller's transaction so the
+ * closure always commits together with the category change that caused it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryClosureService {
+    
+    private final CategoryClosureRepository categoryClosureRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    
+    public boolean isInSubtree(Long ancestorId, Long categoryId) {
+        return categoryClosureRepository.existsByAncestorIdAndDescendantId(ancestorId, categoryId);
+    }
+    
+    @Transactional
+    public void addCategory(Long categoryId, Long parentId) {
+        categoryClosureRepository.insertLeaf(categoryId, parentId);
+    }
+    
+    @Transactional
+    public void moveCategory(Long categoryId, Long newParentId) {
+        categoryClosureRepository.detachSubtree(categoryId);
+        if (newParentId != null) {
+            categoryClosureRepository.attachSubtree(categoryId, newParentId);
+        }
+    }
+    
+    /**
+     * Recomputes the whole table from {@code Category.parent}. Categories created outside
+     * {@link CategoryService}, such as seed data, are picked up here at startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        Map<Long, Long> parents = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            parents.put(category.getId(), category.getParent() != null ? category.getParent().getId() : null);
+        }
+        
+        List<Object[]> links = new ArrayList<>();
+        for (Long categoryId : parents.keySet()) {
+            Set<Long> visited = new HashSet<>();
+            int depth = 0;
+            for (Long ancestor = categoryId; ancestor != null && visited.add(ancestor); ancestor = parents.get(ancestor)) {
+                links.add(new Object[] {ancestor, categoryId, depth++});
+            }
+        }
+        
+        categoryClosureRepository.deleteAllLinks();
+        jdbcTemplate.batchUpdate("INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)", links);
+        log.info("Category closure rebuilt with {} links for {} categories", links.size(), parents.size());
+    }
+}
@@ -2,40 +2,105 @@ package com.ecommerce.service;
 
 import com.ecommerce.dto.CategoryDTO;
 import com.ecommerce.entity.Category;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
 import com.ecommerce.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final CategoryClosureService categoryClosureService;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     public List<CategoryDTO> getAllCategories() {
-        return categoryRepository.findByIsActiveTrue().stream()
-                .map(CategoryDTO::fromEntity)
-                .collect(Collectors.toList());
+        return categoryTreeCache.getActiveCategories();
     }
     
     public List<CategoryDTO> getRootCategories() {
-        return categoryRepository.findByIsActiveTrueAndParentIsNull().stream()
-                .map(CategoryDTO::fromEntity)
-                .collect(Collectors.toList());
+        return categoryTreeCache.getActiveRoots();
     }
     
     public CategoryDTO getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
+        return categoryTreeCache.getCategory(id)
                 .orElseThrow(() -> new RuntimeException("Category not found"));
-        return CategoryDTO.fromEntity(category);
     }
     
     public List<CategoryDTO> getSubCategories(Long parentId) {
-        return categoryRepository.findByParentId(parentId).stream()
-                .filter(Category::getIsActive)
-                .map(CategoryDTO::fromEntity)
-                .collect(Collectors.toList());
+        return categoryTreeCache.getActiveChildren(parentId);
+    }
+    
+    @Transactional
+    public CategoryDTO createCategory(CategoryDTO dto) {
+        Category category = Category.builder()
+                .name(dto.getName())
+                .description(dto.getDescription())
+                .imageUrl(dto.getImageUrl())
+                .parent(dto.getParentId() != null ? findParent(dto.getParentId()) : null)
+                .isActive(true)
+                .build();
+        
+        Category saved = categoryRepository.save(category);
+        categoryClosureService.addCategory(saved.getId(), dto.getParentId());
+        publishChanged(saved.getId());
+        return CategoryDTO.fromEntity(saved);
+    }
+    
+    @Transactional
+    public CategoryDTO updateCategory(Long id, CategoryDTO dto) {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Category not found"));
+        
+        Long currentParentId = category.getParent() != null ? category.getParent().getId() : null;
+        if (dto.getParentId() != null && !dto.getParentId().equals(currentParentId)) {
+            Category parent = findParent(dto.getParentId());
+            if (categoryClosureService.isInSubtree(id, parent.getId())) {
+                throw new RuntimeException("Category cannot be moved under itself");
+            }
+            category.setParent(parent);
+            categoryClosureService.moveCategory(id, parent.getId());
+        }
+        
+        if (dto.getName() != null) category.setName(dto.getName());
+        if (dto.getDescription() != null) category.setDescription(dto.getDescription());
+        if (dto.getImageUrl() != null) category.setImageUrl(dto.getImageUrl());
+        
+        Category saved = categoryRepository.save(category);
+        publishChanged(id);
+        return CategoryDTO.fromEntity(saved);
+    }
+    
+    @Transactional
+    public void deleteCategory(Long id) {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Category not found"));
+        
+        boolean hasActiveChildren = categoryRepository.findByParentId(id).stream()
+                .anyMatch(Category::getIsActive);
+        if (hasActiveChildren) {
+            throw new RuntimeException("Category has active subcategories");
+        }
+        
+        category.setIsActive(false);
+        categoryRepository.save(category);
+        publishChanged(id);
+    }
+    
+    private Category findParent(Long parentId) {
+        return categoryRepository.findById(parentId)
+                .orElseThrow(() -> new RuntimeException("Parent category not found"));
+    }
+    
+    private void publishChanged(Long categoryId) {
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        // Product views embed category names and the category tree drives facet filters
+        eventPublisher.publishEvent(ProductChangedEvent.all());
     }
 }
@@ -0,0 +1,221 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Active product count, in-stock count and price range per category, both for the category's own
+ * products and for its whole subtree. A product change moves that product's contribution out of
+ * its old category chain and into the new one; prices are kept as a multiset so the range stays
+ * exact when the cheapest or dearest product goes away.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryStatsIndex {
+
+    // Guards against a parent cycle in bad data; real trees are a handful of levels deep
+    private static final int MAX_DEPTH = 64;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object updateLock = new Object();
+    private final Map<Long, Long> parents = new HashMap<>();
+    private final Map<Long, Contribution> products = new HashMap<>();
+    private final Map<Long, Aggregate> own = new HashMap<>();
+    private final Map<Long, Aggregate> subtree = new HashMap<>();
+    private volatile boolean built;
+
+    public CategoryDTO.Stats getStats(Long categoryId) {
+        return read(own, categoryId);
+    }
+
+    public CategoryDTO.Stats getSubtreeStats(Long categoryId) {
+        return read(subtree, categoryId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Returns whether any category's stats may have moved, so the categories tag is only bumped
+     * when the category responses could actually differ. Category writes publish a full refresh
+     * as well, so moves and new parents are picked up here.
+     */
+    boolean applyProductChange(ProductChangedEvent event) {
+        synchronized (updateLock) {
+            if (event.isFullRefresh() || !built) {
+                rebuild();
+                return true;
+            }
+
+            List<Product> changed = productRepository.findAllWithCategoryByIdIn(event.getProductIds());
+            Set<Long> missing = new HashSet<>(event.getProductIds());
+            boolean moved = false;
+            lock.writeLock().lock();
+            try {
+                for (Product product : changed) {
+                    missing.remove(product.getId());
+                    moved |= apply(product.getId(), Contribution.of(product));
+                }
+                for (Long id : missing) {
+                    moved |= apply(id, null);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return moved;
+        }
+    }
+
+    private CategoryDTO.Stats read(Map<Long, Aggregate> aggregates, Long categoryId) {
+        if (!built) {
+            ensureBuilt();
+        }
+
+        lock.readLock().lock();
+        try {
+            Aggregate aggregate = aggregates.get(categoryId);
+            return aggregate != null ? aggregate.toStats() : new CategoryDTO.Stats(0, 0, null, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        synchronized (updateLock) {
+            if (!built) {
+                rebuild();
+            }
+        }
+    }
+
+    private void rebuild() {
+        synchronized (updateLock) {
+            List<Category> categories = categoryRepository.findAll();
+            List<Product> active = productRepository.findAllActiveWithCategory();
+
+            lock.writeLock().lock();
+            try {
+                parents.clear();
+                products.clear();
+                own.clear();
+                subtree.clear();
+                for (Category category : categories) {
+                    if (category.getParent() != null) {
+                        parents.put(category.getId(), category.getParent().getId());
+                    }
+                }
+                for (Product product : active) {
+                    apply(product.getId(), Contribution.of(product));
+                }
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Category stats built for {} categories from {} active products", categories.size(), active.size());
+        }
+    }
+
+    // Caller holds the write lock; a null contribution removes the product. Returns false when
+    // the product contributes exactly what it did before.
+    private boolean apply(Long productId, Contribution next) {
+        Contribution previous = next != null ? products.put(productId, next) : products.remove(productId);
+        if (Contribution.same(previous, next)) {
+            return false;
+        }
+        if (previous != null) {
+            own.get(previous.categoryId()).remove(previous);
+            forEachInChain(previous.categoryId(), id -> subtree.get(id).remove(previous));
+        }
+        if (next != null) {
+            own.computeIfAbsent(next.categoryId(), id -> new Aggregate()).add(next);
+            forEachInChain(next.categoryId(), id -> subtree.computeIfAbsent(id, key -> new Aggregate()).add(next));
+        }
+        return true;
+    }
+
+    private void forEachInChain(Long categoryId, Consumer<Long> action) {
+        Long current = categoryId;
+        for (int depth = 0; current != null && depth < MAX_DEPTH; depth++) {
+            action.accept(current);
+            current = parents.get(current);
+        }
+    }
+
+    /**
+     * What one active product adds to its categories. Inactive products contribute nothing and
+     * are represented by their absence.
+     */
+    private record Contribution(Long categoryId, BigDecimal price, boolean inStock) {
+
+        static Contribution of(Product product) {
+            if (!Boolean.TRUE.equals(product.getIsActive()) || product.getCategory() == null) {
+                return null;
+            }
+            return new Contribution(product.getCategory().getId(), product.getPrice(),
+                    product.getStockQuantity() != null && product.getStockQuantity() > 0);
+        }
+
+        static boolean same(Contribution a, Contribution b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return a.categoryId().equals(b.categoryId()) && a.inStock() == b.inStock()
+                    && (a.price() == null ? b.price() == null : b.price() != null && a.price().compareTo(b.price()) == 0);
+        }
+    }
+
+    private static class Aggregate {
+        private int productCount;
+        private int inStockCount;
+        // BigDecimal keys compare by value, so 10.0 and 10.00 share a slot
+        private final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+
+        void add(Contribution contribution) {
+            productCount++;
+            if (contribution.inStock()) {
+                inStockCount++;
+            }
+            if (contribution.price() != null) {
+                prices.merge(contribution.price(), 1, Integer::sum);
+            }
+        }
+
+        void remove(Contribution contribution) {
+            productCount--;
+            if (contribution.inStock()) {
+                inStockCount--;
+            }
+            if (contribution.price() != null) {
+                prices.computeIfPresent(contribution.price(), (price, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        CategoryDTO.Stats toStats() {
+            return new CategoryDTO.Stats(productCount, inStockCount,
+                    prices.isEmpty() ? null : prices.firstKey(),
+                    prices.isEmpty() ? null : prices.lastKey());
+        }
+    }
+}
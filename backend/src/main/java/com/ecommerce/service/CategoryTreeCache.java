@@ -0,0 +1,139 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.entity.Category;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * The whole category tree, loaded with one query into immutable nodes. DTOs are built per call
+ * so callers never share mutable state with the cache; product stats come from
+ * {@link CategoryStatsIndex}, which tracks product changes on its own.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeCache {
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryStatsIndex categoryStatsIndex;
+
+    private final AtomicReference<Tree> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public List<CategoryDTO> getActiveCategories() {
+        Tree tree = tree();
+        return tree.nodes.values().stream()
+                .filter(Node::active)
+                .map(node -> toDTO(tree, node))
+                .collect(Collectors.toList());
+    }
+
+    public List<CategoryDTO> getActiveRoots() {
+        Tree tree = tree();
+        return tree.nodes.values().stream()
+                .filter(node -> node.active() && node.parentId() == null)
+                .map(node -> toDTO(tree, node))
+                .collect(Collectors.toList());
+    }
+
+    public List<CategoryDTO> getActiveChildren(Long parentId) {
+        Tree tree = tree();
+        Node parent = tree.nodes.get(parentId);
+        if (parent == null) {
+            return List.of();
+        }
+        return activeChildren(tree, parent);
+    }
+
+    public Optional<CategoryDTO> getCategory(Long id) {
+        Tree tree = tree();
+        return Optional.ofNullable(tree.nodes.get(id)).map(node -> toDTO(tree, node));
+    }
+
+    // Ahead of CatalogVersionService, so a new categories tag never serves the old tree
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        generation.incrementAndGet();
+        current.set(null);
+    }
+
+    /**
+     * A tree built while a change was committing carries the older generation and is
+     * replaced on the next read.
+     */
+    private Tree tree() {
+        Tree tree = current.get();
+        long expected = generation.get();
+        if (tree != null && tree.generation == expected) {
+            return tree;
+        }
+
+        List<Category> categories = categoryRepository.findAll();
+        Map<Long, List<Long>> childIds = new HashMap<>();
+        for (Category category : categories) {
+            if (category.getParent() != null) {
+                childIds.computeIfAbsent(category.getParent().getId(), id -> new ArrayList<>()).add(category.getId());
+            }
+        }
+
+        Map<Long, Node> nodes = new LinkedHashMap<>();
+        categories.stream()
+                .sorted(Comparator.comparing(Category::getId))
+                .forEach(category -> nodes.put(category.getId(), new Node(
+                        category.getId(),
+                        category.getName(),
+                        category.getDescription(),
+                        category.getImageUrl(),
+                        category.getParent() != null ? category.getParent().getId() : null,
+                        Boolean.TRUE.equals(category.getIsActive()),
+                        childIds.getOrDefault(category.getId(), List.of()).stream().sorted().toList())));
+
+        Tree built = new Tree(expected, Collections.unmodifiableMap(nodes));
+        current.set(built);
+        log.debug("Category tree cached with {} categories", nodes.size());
+        return built;
+    }
+
+    private CategoryDTO toDTO(Tree tree, Node node) {
+        CategoryDTO dto = CategoryDTO.builder()
+                .id(node.id())
+                .name(node.name())
+                .description(node.description())
+                .imageUrl(node.imageUrl())
+                .parentId(node.parentId())
+                .stats(categoryStatsIndex.getStats(node.id()))
+                .subtreeStats(categoryStatsIndex.getSubtreeStats(node.id()))
+                .build();
+        if (!node.childIds().isEmpty()) {
+            dto.setChildren(activeChildren(tree, node));
+        }
+        return dto;
+    }
+
+    private List<CategoryDTO> activeChildren(Tree tree, Node node) {
+        return node.childIds().stream()
+                .map(tree.nodes::get)
+                .filter(Node::active)
+                .map(child -> toDTO(tree, child))
+                .collect(Collectors.toList());
+    }
+
+    private record Node(Long id, String name, String description, String imageUrl, Long parentId,
+                        boolean active, List<Long> childIds) {
+    }
+
+    private record Tree(long generation, Map<Long, Node> nodes) {
+    }
+}
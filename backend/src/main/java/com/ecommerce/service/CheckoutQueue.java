@@ -0,0 +1,263 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CheckoutTicketDTO;
+import com.ecommerce.dto.CreateOrderRequest;
+import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.PriceCardDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Queued checkout for sales spikes, enabled with {@code app.checkout.queue.enabled}. A checkout
+ * request is validated, its stock is held, and it is queued as a ticket; a fixed number of workers
+ * take tickets in arrival order, flush the carts of each batch in one write and then place the
+ * orders one by one. The database therefore sees at most one checkout per worker at a time,
+ * however many requests arrive. A ticket is placed for the cart as it was submitted; if the cart
+ * changes before a worker gets to it, the ticket fails rather than ordering the new contents.
+ * <p>
+ * Tickets live in memory; finished ones are kept for {@code ticket-ttl-ms} so clients can poll.
+ */
+@Component
+@Slf4j
+public class CheckoutQueue {
+
+    private static final long POLL_MS = 250;
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final OrderService orderService;
+    private final CartStore cartStore;
+    private final InventoryReservations inventoryReservations;
+    private final PriceCardCache priceCardCache;
+    private final Executor checkoutExecutor;
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final long ticketTtlMs;
+
+    private final BlockingQueue<Ticket> queue;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Map<Long, Ticket> openByUser = new ConcurrentHashMap<>();
+    private final CountDownLatch stopped;
+    private volatile boolean running = true;
+
+    public CheckoutQueue(OrderService orderService,
+                         CartStore cartStore,
+                         InventoryReservations inventoryReservations,
+                         PriceCardCache priceCardCache,
+                         @Qualifier("checkoutExecutor") Executor checkoutExecutor,
+                         @Value("${app.checkout.queue.enabled:false}") boolean enabled,
+                         @Value("${app.checkout.queue.capacity:1000}") int capacity,
+                         @Value("${app.checkout.queue.workers:4}") int workers,
+                         @Value("${app.checkout.queue.batch-size:20}") int batchSize,
+                         @Value("${app.checkout.queue.ticket-ttl-ms:600000}") long ticketTtlMs) {
+        this.orderService = orderService;
+        this.cartStore = cartStore;
+        this.inventoryReservations = inventoryReservations;
+        this.priceCardCache = priceCardCache;
+        this.checkoutExecutor = checkoutExecutor;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.ticketTtlMs = ticketTtlMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.stopped = new CountDownLatch(workers);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CheckoutTicketDTO submit(Long userId, CreateOrderRequest request) {
+        Map<Long, Integer> quantities = Map.copyOf(cartStore.get(userId).quantities());
+        if (quantities.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        // A request that can only fail is refused now rather than after the wait
+        orderService.validateCheckout(request);
+
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), userId, request, quantities);
+        if (openByUser.putIfAbsent(userId, ticket) != null) {
+            throw new RuntimeException("A checkout is already in progress");
+        }
+        tickets.put(ticket.id, ticket);
+
+        // Holding stock up front turns a sold-out cart away now instead of after the wait
+        try {
+            if (request.getHoldId() == null || request.getHoldId().isBlank()) {
+                ticket.heldHere = inventoryReservations.hold(userId, quantities).getId();
+                request.setHoldId(ticket.heldHere);
+            }
+            if (!queue.offer(ticket)) {
+                throw new RuntimeException("Checkout is busy, please try again shortly");
+            }
+        } catch (InventoryReservations.InsufficientStockException e) {
+            forget(ticket);
+            String names = priceCardCache.getAll(e.getProductIds()).values().stream()
+                    .map(PriceCardDTO::getName)
+                    .collect(Collectors.joining(", "));
+            throw new RuntimeException("Insufficient stock: " + names);
+        } catch (RuntimeException e) {
+            forget(ticket);
+            if (ticket.heldHere != null) {
+                inventoryReservations.release(ticket.heldHere, userId);
+            }
+            throw e;
+        }
+        return ticket.toDTO();
+    }
+
+    public CheckoutTicketDTO getTicket(Long userId, String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null || !ticket.userId.equals(userId)) {
+            throw new RuntimeException("Checkout ticket not found");
+        }
+        return ticket.toDTO();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < workers; i++) {
+            checkoutExecutor.execute(() -> {
+                try {
+                    drain();
+                } finally {
+                    stopped.countDown();
+                }
+            });
+        }
+        log.info("Queued checkout enabled with {} workers", workers);
+    }
+
+    // Waits here rather than in the executor so the services the workers use are still up
+    @PreDestroy
+    public void stopWorkers() throws InterruptedException {
+        running = false;
+        if (enabled && !stopped.await(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Checkout workers did not finish within {}s, {} tickets left queued", SHUTDOWN_WAIT_SECONDS, queue.size());
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void expireTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(ticketTtlMs));
+        tickets.values().removeIf(ticket -> ticket.completedAt != null && ticket.completedAt.isBefore(cutoff));
+    }
+
+    private void forget(Ticket ticket) {
+        tickets.remove(ticket.id);
+        openByUser.remove(ticket.userId, ticket);
+    }
+
+    private void drain() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Ticket first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                cartStore.flushUsers(batch.stream().map(ticket -> ticket.userId).toList());
+            } catch (RuntimeException e) {
+                // Each checkout flushes its own cart again
+                log.warn("Grouped cart flush failed for {} queued checkouts", batch.size(), e);
+            }
+            batch.forEach(this::process);
+            batch.clear();
+        }
+    }
+
+    private void process(Ticket ticket) {
+        ticket.status = Status.PROCESSING;
+        try {
+            // A no-op when the batch flush went through
+            cartStore.flush(ticket.userId);
+            // The order is for what the user confirmed; a cart changed since fails the ticket
+            ticket.order = orderService.createOrder(ticket.userId, ticket.request, ticket.quantities);
+            ticket.status = Status.COMPLETED;
+        } catch (RuntimeException e) {
+            ticket.error = e.getMessage();
+            ticket.status = Status.FAILED;
+            log.debug("Queued checkout {} failed: {}", ticket.id, e.getMessage());
+            releaseHold(ticket);
+        } finally {
+            ticket.completedAt = LocalDateTime.now();
+            openByUser.remove(ticket.userId, ticket);
+        }
+    }
+
+    // The hold taken for the ticket would otherwise keep its stock until it expires
+    private void releaseHold(Ticket ticket) {
+        if (ticket.heldHere == null) {
+            return;
+        }
+        try {
+            inventoryReservations.release(ticket.heldHere, ticket.userId);
+        } catch (RuntimeException e) {
+            log.warn("Could not release stock hold {} of failed checkout {}", ticket.heldHere, ticket.id, e);
+        }
+    }
+
+    public enum Status {
+        QUEUED, PROCESSING, COMPLETED, FAILED
+    }
+
+    private static final class Ticket {
+        final String id;
+        final Long userId;
+        final CreateOrderRequest request;
+        // The cart as it was when the checkout was submitted
+        final Map<Long, Integer> quantities;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile Status status = Status.QUEUED;
+        volatile OrderDTO order;
+        volatile String error;
+        volatile LocalDateTime completedAt;
+        // Set when submit took the stock hold, rather than the client
+        volatile String heldHere;
+
+        Ticket(String id, Long userId, CreateOrderRequest request, Map<Long, Integer> quantities) {
+            this.id = id;
+            this.userId = userId;
+            this.request = request;
+            this.quantities = quantities;
+        }
+
+        CheckoutTicketDTO toDTO() {
+            return CheckoutTicketDTO.builder()
+                    .ticketId(id)
+                    .status(status.name())
+                    .order(order)
+                    .error(error)
+                    .createdAt(createdAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
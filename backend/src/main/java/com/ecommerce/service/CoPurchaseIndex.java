@@ -0,0 +1,308 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.OrderPlacedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * "Frequently bought together" model. For every product it keeps how often each other product
+ * appeared in the same order, plus the top neighbors in primitive arrays that readers take
+ * without locking. New orders update it incrementally; a rebuild replays the order history,
+ * sharded by anchor product across cores.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CoPurchaseIndex {
+    static final int MAX_NEIGHBORS = 20;
+    
+    private static final String REPLAY_SQL = "SELECT oi.order_id, oi.product_id FROM order_items oi "
+            + "JOIN orders o ON o.id = oi.order_id WHERE o.status <> 'CANCELLED' ORDER BY oi.order_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final Object writeLock = new Object();
+    private final Object rebuildLock = new Object();
+    private final List<OrderPlacedEvent> placedDuringRebuild = new ArrayList<>();
+    private volatile State state = new State();
+    private boolean rebuilding;
+    
+    public List<Long> related(Long productId, int limit) {
+        Neighbors neighbors = state.neighbors.get(productId);
+        if (neighbors == null) {
+            return List.of();
+        }
+        int size = Math.min(limit, neighbors.ids.length);
+        List<Long> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(neighbors.ids[i]);
+        }
+        return result;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        synchronized (writeLock) {
+            state.add(toBasket(event.getProductIds()), shard -> true);
+            if (rebuilding) {
+                placedDuringRebuild.add(event);
+            }
+        }
+    }
+    
+    /**
+     * Replays every non-cancelled order and swaps the result in. Orders placed while the replay
+     * runs are re-applied on top if the replay did not already see them.
+     */
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (writeLock) {
+                rebuilding = true;
+                placedDuringRebuild.clear();
+            }
+            
+            long started = System.currentTimeMillis();
+            List<long[]> baskets = new ArrayList<>();
+            long[] replayedOrderIds = loadBaskets(baskets);
+            
+            int shards = Runtime.getRuntime().availableProcessors();
+            List<State> parts = IntStream.range(0, shards).parallel()
+                    .mapToObj(shard -> replayShard(baskets, shard, shards))
+                    .toList();
+            State rebuilt = new State();
+            parts.forEach(part -> {
+                rebuilt.neighbors.putAll(part.neighbors);
+                rebuilt.counts.putAll(part.counts);
+            });
+            
+            synchronized (writeLock) {
+                placedDuringRebuild.stream()
+                        .filter(event -> Arrays.binarySearch(replayedOrderIds, event.getOrderId()) < 0)
+                        .forEach(event -> rebuilt.add(toBasket(event.getProductIds()), anchor -> true));
+                placedDuringRebuild.clear();
+                rebuilding = false;
+                state = rebuilt;
+            }
+            log.info("Co-purchase index rebuilt from {} orders over {} products in {} ms",
+                    baskets.size(), rebuilt.neighbors.size(), System.currentTimeMillis() - started);
+            return baskets.size();
+        }
+    }
+    
+    /**
+     * Streams order lines into per-order baskets and returns the replayed order ids, ascending.
+     */
+    private long[] loadBaskets(List<long[]> baskets) {
+        long[] current = {0};
+        List<Long> items = new ArrayList<>();
+        LongStream.Builder orderIds = LongStream.builder();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(REPLAY_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, (ResultSet rs) -> {
+            long orderId = rs.getLong(1);
+            if (orderId != current[0]) {
+                if (!items.isEmpty()) {
+                    baskets.add(toBasket(items));
+                    items.clear();
+                }
+                orderIds.add(orderId);
+                current[0] = orderId;
+            }
+            items.add(rs.getLong(2));
+        });
+        if (!items.isEmpty()) {
+            baskets.add(toBasket(items));
+        }
+        return orderIds.build().toArray();
+    }
+    
+    private static State replayShard(List<long[]> baskets, int shard, int shards) {
+        State part = new State();
+        for (long[] basket : baskets) {
+            part.count(basket, anchor -> Math.floorMod(Long.hashCode(anchor), shards) == shard);
+        }
+        part.counts.forEach((anchor, counts) -> part.neighbors.put(anchor, counts.topNeighbors(MAX_NEIGHBORS)));
+        return part;
+    }
+    
+    private static long[] toBasket(Collection<Long> productIds) {
+        return productIds.stream().mapToLong(Long::longValue).distinct().toArray();
+    }
+    
+    private interface AnchorFilter {
+        boolean accepts(long anchor);
+    }
+    
+    private static final class State {
+        private final Map<Long, Neighbors> neighbors = new ConcurrentHashMap<>();
+        private final Map<Long, PairCounts> counts = new HashMap<>();
+        
+        void count(long[] basket, AnchorFilter filter) {
+            for (long anchor : basket) {
+                if (basket.length < 2 || !filter.accepts(anchor)) {
+                    continue;
+                }
+                PairCounts pairs = counts.computeIfAbsent(anchor, id -> new PairCounts());
+                for (long other : basket) {
+                    if (other != anchor) {
+                        pairs.increment(other);
+                    }
+                }
+            }
+        }
+        
+        void add(long[] basket, AnchorFilter filter) {
+            for (long anchor : basket) {
+                if (basket.length < 2 || !filter.accepts(anchor)) {
+                    continue;
+                }
+                PairCounts pairs = counts.computeIfAbsent(anchor, id -> new PairCounts());
+                Neighbors top = neighbors.getOrDefault(anchor, Neighbors.EMPTY);
+                for (long other : basket) {
+                    if (other != anchor) {
+                        top = top.with(other, pairs.increment(other), MAX_NEIGHBORS);
+                    }
+                }
+                neighbors.put(anchor, top);
+            }
+        }
+    }
+    
+    /**
+     * Immutable top-K list ordered by count descending, then id ascending.
+     */
+    private static final class Neighbors {
+        static final Neighbors EMPTY = new Neighbors(new long[0], new int[0]);
+        
+        private final long[] ids;
+        private final int[] counts;
+        
+        Neighbors(long[] ids, int[] counts) {
+            this.ids = ids;
+            this.counts = counts;
+        }
+        
+        /**
+         * Counts only grow, so a product outside the list can only enter it on its own increment
+         * and the list stays exact.
+         */
+        Neighbors with(long id, int count, int limit) {
+            int size = ids.length;
+            int index = -1;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    index = i;
+                    break;
+                }
+            }
+            
+            long[] newIds;
+            int[] newCounts;
+            if (index >= 0) {
+                newIds = ids.clone();
+                newCounts = counts.clone();
+            } else if (size < limit) {
+                newIds = Arrays.copyOf(ids, size + 1);
+                newCounts = Arrays.copyOf(counts, size + 1);
+                index = size;
+            } else if (size > 0 && ranksBefore(count, id, counts[size - 1], ids[size - 1])) {
+                newIds = ids.clone();
+                newCounts = counts.clone();
+                index = size - 1;
+            } else {
+                return this;
+            }
+            
+            newIds[index] = id;
+            newCounts[index] = count;
+            while (index > 0 && ranksBefore(newCounts[index], newIds[index], newCounts[index - 1], newIds[index - 1])) {
+                long swapId = newIds[index - 1];
+                int swapCount = newCounts[index - 1];
+                newIds[index - 1] = newIds[index];
+                newCounts[index - 1] = newCounts[index];
+                newIds[index] = swapId;
+                newCounts[index] = swapCount;
+                index--;
+            }
+            return new Neighbors(newIds, newCounts);
+        }
+        
+        private static boolean ranksBefore(int count, long id, int otherCount, long otherId) {
+            return count > otherCount || (count == otherCount && id < otherId);
+        }
+    }
+    
+    /**
+     * Open-addressing long-to-int map of co-purchase counts for one anchor product.
+     * Product ids start at 1, so 0 marks an empty slot.
+     */
+    private static final class PairCounts {
+        private long[] keys = new long[8];
+        private int[] values = new int[8];
+        private int size;
+        
+        int increment(long key) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int slot = slotOf(keys, key);
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            return ++values[slot];
+        }
+        
+        Neighbors topNeighbors(int limit) {
+            Neighbors top = Neighbors.EMPTY;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    top = top.with(keys[i], values[i], limit);
+                }
+            }
+            return top;
+        }
+        
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slotOf(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+        
+        private static int slotOf(long[] table, long key) {
+            int mask = table.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (table[slot] != 0 && table[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
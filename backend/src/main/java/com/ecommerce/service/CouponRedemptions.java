@@ -0,0 +1,197 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Coupon;
+import com.ecommerce.event.CouponRedeemedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coupon usage accounting for checkout.
+ * <p>
+ * A coupon with a usage limit gets a gate holding its remaining redemptions, spread over striped
+ * counters so concurrent checkouts rarely retry on the same one. Each checkout takes one permit or
+ * is refused in memory. Taken permits are written with a conditional increment just before the
+ * order commits, so the row lock is held briefly and {@code usage_limit} is enforced by MySQL even
+ * across instances. A rolled-back checkout returns its permit.
+ * <p>
+ * A coupon without a limit has nothing to enforce, so its uses are counted in memory and added to
+ * {@code used_count} in batches.
+ */
+@Component
+@Slf4j
+public class CouponRedemptions {
+
+    private static final int STRIPES = 16;
+
+    private static final String REDEEM_SQL = "UPDATE coupons SET used_count = used_count + 1 "
+            + "WHERE id = ? AND (usage_limit IS NULL OR used_count < usage_limit)";
+    private static final String ADD_USAGE_SQL = "UPDATE coupons SET used_count = used_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long gateRefreshMs;
+
+    private final Map<Long, Gate> gates = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> unflushedUses = new ConcurrentHashMap<>();
+
+    public CouponRedemptions(JdbcTemplate jdbcTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${app.coupon.gate-refresh-ms:60000}") long gateRefreshMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.gateRefreshMs = gateRefreshMs;
+    }
+
+    /**
+     * Redeems the coupon for the checkout in the current transaction. The coupon should have been
+     * loaded in that transaction, as its {@code usedCount} seeds the gate.
+     */
+    public void redeem(Coupon coupon) {
+        if (coupon.getUsageLimit() == null) {
+            eventPublisher.publishEvent(new CouponRedeemedEvent(coupon.getId(), false));
+            return;
+        }
+
+        if (!gate(coupon).tryAcquire()) {
+            throw new RuntimeException("Coupon expired or limit reached");
+        }
+        eventPublisher.publishEvent(new CouponRedeemedEvent(coupon.getId(), true));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beforeCheckoutCommit(CouponRedeemedEvent event) {
+        if (event.isLimited() && jdbcTemplate.update(REDEEM_SQL, event.getCouponId()) == 0) {
+            // Another instance used the last redemptions; stop admitting until the gate refreshes
+            Gate gate = gates.get(event.getCouponId());
+            if (gate != null) {
+                gate.exhaust();
+            }
+            throw new RuntimeException("Coupon expired or limit reached");
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCheckoutCommitted(CouponRedeemedEvent event) {
+        if (event.isLimited()) {
+            Gate gate = gates.get(event.getCouponId());
+            if (gate != null) {
+                gate.inFlight.decrementAndGet();
+            }
+        } else {
+            unflushedUses.computeIfAbsent(event.getCouponId(), id -> new LongAdder()).increment();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onCheckoutRolledBack(CouponRedeemedEvent event) {
+        Gate gate = event.isLimited() ? gates.get(event.getCouponId()) : null;
+        if (gate != null) {
+            gate.inFlight.decrementAndGet();
+            gate.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.coupon.usage-flush-interval-ms:5000}")
+    public void flushUses() {
+        List<Object[]> increments = new ArrayList<>();
+        unflushedUses.forEach((couponId, uses) -> {
+            long count = uses.sumThenReset();
+            if (count > 0) {
+                increments.add(new Object[]{count, couponId});
+            }
+        });
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(ADD_USAGE_SQL, increments);
+        } catch (RuntimeException e) {
+            increments.forEach(args -> unflushedUses.computeIfAbsent((Long) args[1], id -> new LongAdder()).add((Long) args[0]));
+            log.warn("Coupon usage flush failed, {} coupons will be retried", increments.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushUses();
+    }
+
+    /**
+     * Gates are rebuilt from the coupon's current row once they are older than the refresh
+     * interval, which picks up limit changes and uses made by other instances.
+     */
+    private Gate gate(Coupon coupon) {
+        long now = System.currentTimeMillis();
+        return gates.compute(coupon.getId(), (id, gate) -> {
+            if (gate != null && now - gate.loadedAt < gateRefreshMs) {
+                return gate;
+            }
+            // Uses still in flight are not in usedCount yet
+            AtomicInteger inFlight = gate != null ? gate.inFlight : new AtomicInteger();
+            int remaining = coupon.getUsageLimit() - coupon.getUsedCount() - inFlight.get();
+            return new Gate(Math.max(0, remaining), inFlight, now);
+        });
+    }
+
+    private static final class Gate {
+        final AtomicInteger[] stripes = new AtomicInteger[STRIPES];
+        final AtomicInteger inFlight;
+        final long loadedAt;
+        volatile boolean exhausted;
+
+        Gate(int permits, AtomicInteger inFlight, long loadedAt) {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new AtomicInteger(permits / STRIPES + (i < permits % STRIPES ? 1 : 0));
+            }
+            this.inFlight = inFlight;
+            this.loadedAt = loadedAt;
+        }
+
+        // Starts at a random stripe and moves on when it is empty, so the limit is exact
+        boolean tryAcquire() {
+            if (exhausted) {
+                return false;
+            }
+            int start = ThreadLocalRandom.current().nextInt(STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                AtomicInteger stripe = stripes[(start + i) % STRIPES];
+                for (int permits = stripe.get(); permits > 0; permits = stripe.get()) {
+                    if (stripe.compareAndSet(permits, permits - 1)) {
+                        inFlight.incrementAndGet();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        void release() {
+            if (exhausted) {
+                return;
+            }
+            stripes[ThreadLocalRandom.current().nextInt(STRIPES)].incrementAndGet();
+        }
+
+        void exhaust() {
+            exhausted = true;
+            for (AtomicInteger stripe : stripes) {
+                stripe.set(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.CheckoutHoldEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock gate for checkout. Each tracked product has a counter of units on hold, kept
+ * in one of a fixed number of lock shards, so holds on different products rarely contend and a
+ * sold-out product is turned away without touching its row. A hold takes units for a limited
+ * time; committing the order confirms it, and expired holds are returned by a timer wheel.
+ * <p>
+ * {@code products.stock_quantity} stays the source of truth: the order's conditional update still
+ * runs, and the known stock of every tracked product is re-read periodically and after product
+ * changes. Units of a confirmed hold stay counted until a re-read that started after the confirm
+ * shows them gone from the row, so the gate errs towards refusing rather than overselling.
+ */
+@Component
+@Slf4j
+public class InventoryReservations {
+
+    private static final int SHARDS = 64;
+    private static final int WHEEL_SLOTS = 512;
+    private static final long TICK_MS = 1000;
+    private static final int RESYNC_CHUNK = 1000;
+
+    private static final int ACTIVE = 0;
+    private static final int CLAIMED = 1;
+    private static final int DONE = 2;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final long holdTtlMs;
+    private final long checkoutHoldTtlMs;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final List<Queue<Hold>> wheel = new ArrayList<>(WHEEL_SLOTS);
+    private volatile long lastTick = System.currentTimeMillis() / TICK_MS;
+    // Orders confirmations against stock re-reads
+    private final AtomicLong clock = new AtomicLong();
+
+    public InventoryReservations(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.inventory.hold-ttl-ms:600000}") long holdTtlMs,
+                                 @Value("${app.inventory.checkout-hold-ttl-ms:30000}") long checkoutHoldTtlMs) {
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.holdTtlMs = holdTtlMs;
+        this.checkoutHoldTtlMs = checkoutHoldTtlMs;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Holds the quantities (product id to quantity) for the user until they check out with the
+     * hold or it expires.
+     */
+    public Hold hold(Long userId, Map<Long, Integer> quantities) {
+        return acquire(userId, quantities, holdTtlMs, ACTIVE);
+    }
+
+    /**
+     * Claims a hold for a checkout running in the current transaction. Without a hold id, or when
+     * the cart no longer matches the hold, a short-lived hold is taken for the cart instead. Pair
+     * with a {@link CheckoutHoldEvent} so the hold is confirmed or released with the transaction.
+     */
+    public Hold claimForCheckout(String holdId, Long userId, Map<Long, Integer> quantities) {
+        if (holdId != null) {
+            Hold hold = holds.get(holdId);
+            if (hold == null || !hold.userId.equals(userId)) {
+                throw new RuntimeException("Stock hold expired or not found");
+            }
+            if (hold.quantities.equals(quantities)) {
+                if (!hold.state.compareAndSet(ACTIVE, CLAIMED)) {
+                    throw new RuntimeException("Stock hold expired or already used");
+                }
+                return hold;
+            }
+            // The cart changed after the hold was taken
+            release(holdId, userId);
+        }
+        return acquire(userId, quantities, checkoutHoldTtlMs, CLAIMED);
+    }
+
+    public void release(String holdId, Long userId) {
+        Hold hold = holds.get(holdId);
+        if (hold == null || !hold.userId.equals(userId)) {
+            return;
+        }
+        if (hold.state.get() == CLAIMED) {
+            throw new RuntimeException("Stock hold is being used by a checkout");
+        }
+        if (hold.state.compareAndSet(ACTIVE, DONE)) {
+            finish(hold, false);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCheckoutCommitted(CheckoutHoldEvent event) {
+        Hold hold = holds.get(event.getHoldId());
+        if (hold != null && hold.state.compareAndSet(CLAIMED, DONE)) {
+            finish(hold, true);
+        }
+    }
+
+    // A hold the client took explicitly survives a failed checkout so it can be retried
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onCheckoutRolledBack(CheckoutHoldEvent event) {
+        Hold hold = holds.get(event.getHoldId());
+        if (hold == null) {
+            return;
+        }
+        if (event.isReleaseOnRollback()) {
+            if (hold.state.compareAndSet(CLAIMED, DONE)) {
+                finish(hold, false);
+            }
+        } else {
+            hold.state.compareAndSet(CLAIMED, ACTIVE);
+        }
+    }
+
+    void applyProductChange(ProductChangedEvent event) {
+        resync(event.isFullRefresh() ? trackedProductIds() : event.getProductIds());
+    }
+
+    @Scheduled(fixedRate = TICK_MS)
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / TICK_MS;
+        for (long tick = Math.max(lastTick + 1, currentTick - WHEEL_SLOTS + 1); tick <= currentTick; tick++) {
+            Queue<Hold> slot = wheel.get((int) (tick % WHEEL_SLOTS));
+            // Bounded so holds put back into this slot wait for their round
+            for (int n = slot.size(); n > 0; n--) {
+                Hold hold = slot.poll();
+                if (hold == null) {
+                    break;
+                }
+                if (hold.state.get() == DONE) {
+                    continue;
+                }
+                if (hold.expiresAt > now || hold.state.get() == CLAIMED) {
+                    // Not due yet, or a checkout is deciding its fate; look again later
+                    wheel.get((int) ((Math.max(hold.expiresAt / TICK_MS, currentTick + 1)) % WHEEL_SLOTS)).add(hold);
+                } else if (hold.state.compareAndSet(ACTIVE, DONE)) {
+                    finish(hold, false);
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        Set<Long> tracked = trackedProductIds();
+        resync(tracked);
+
+        // Safety net for a hold scheduled into a slot the wheel had just passed
+        long now = System.currentTimeMillis();
+        for (Hold hold : holds.values()) {
+            if (hold.expiresAt + TICK_MS < now && hold.state.compareAndSet(ACTIVE, DONE)) {
+                finish(hold, false);
+            }
+        }
+        log.debug("Reconciled stock for {} products, {} holds open", tracked.size(), holds.size());
+    }
+
+    private Hold acquire(Long userId, Map<Long, Integer> quantities, long ttlMs, int initialState) {
+        track(quantities.keySet());
+
+        Hold hold = new Hold(UUID.randomUUID().toString(), userId, Map.copyOf(quantities),
+                System.currentTimeMillis() + ttlMs, initialState);
+        List<Shard> locked = lockShards(quantities.keySet());
+        try {
+            List<Long> shortProductIds = new ArrayList<>();
+            quantities.forEach((productId, quantity) -> {
+                Sku sku = shardOf(productId).skus.get(productId);
+                if (sku == null || sku.available() < quantity) {
+                    shortProductIds.add(productId);
+                }
+            });
+            if (!shortProductIds.isEmpty()) {
+                throw new InsufficientStockException(shortProductIds);
+            }
+            quantities.forEach((productId, quantity) -> shardOf(productId).skus.get(productId).held += quantity);
+        } finally {
+            unlock(locked);
+        }
+
+        holds.put(hold.id, hold);
+        wheel.get((int) (Math.max(hold.expiresAt / TICK_MS, lastTick + 1) % WHEEL_SLOTS)).add(hold);
+        return hold;
+    }
+
+    /**
+     * Returns the hold's units. A confirmed hold moves them to settling, where they wait for a
+     * stock re-read that includes the order.
+     */
+    private void finish(Hold hold, boolean confirmed) {
+        holds.remove(hold.id);
+        List<Shard> locked = lockShards(hold.quantities.keySet());
+        try {
+            long confirmedAt = clock.incrementAndGet();
+            hold.quantities.forEach((productId, quantity) -> {
+                Sku sku = shardOf(productId).skus.get(productId);
+                sku.held -= quantity;
+                if (confirmed) {
+                    sku.settling.add(new long[]{confirmedAt, quantity});
+                    sku.settlingQuantity += quantity;
+                }
+            });
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    // Loads stock for products not tracked yet; a product that does not exist is left untracked
+    private void track(Collection<Long> productIds) {
+        List<Long> missing = productIds.stream()
+                .filter(productId -> {
+                    Shard shard = shardOf(productId);
+                    shard.lock.lock();
+                    try {
+                        return !shard.skus.containsKey(productId);
+                    } finally {
+                        shard.lock.unlock();
+                    }
+                })
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        loadStock(missing).forEach((productId, stock) -> {
+            Shard shard = shardOf(productId);
+            shard.lock.lock();
+            try {
+                shard.skus.computeIfAbsent(productId, id -> new Sku()).stock = stock;
+            } finally {
+                shard.lock.unlock();
+            }
+        });
+    }
+
+    // Chunked so a full refresh or a large bulk change never sends one huge IN list
+    private void resync(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += RESYNC_CHUNK) {
+            resyncChunk(ids.subList(from, Math.min(from + RESYNC_CHUNK, ids.size())));
+        }
+    }
+
+    private void resyncChunk(List<Long> productIds) {
+        long startedAt = clock.get();
+        Map<Long, Integer> stock = loadStock(productIds);
+        for (Long productId : productIds) {
+            Shard shard = shardOf(productId);
+            shard.lock.lock();
+            try {
+                Sku sku = shard.skus.get(productId);
+                if (sku == null) {
+                    continue;
+                }
+                sku.stock = stock.getOrDefault(productId, 0);
+                while (!sku.settling.isEmpty() && sku.settling.peek()[0] <= startedAt) {
+                    sku.settlingQuantity -= (int) sku.settling.poll()[1];
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private Map<Long, Integer> loadStock(Collection<Long> productIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, stock_quantity FROM products WHERE id IN (:ids)",
+                Map.of("ids", productIds),
+                rs -> {
+                    stock.put(rs.getLong(1), rs.getInt(2));
+                });
+        return stock;
+    }
+
+    private Set<Long> trackedProductIds() {
+        Set<Long> productIds = new HashSet<>();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                productIds.addAll(shard.skus.keySet());
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return productIds;
+    }
+
+    private Shard shardOf(Long productId) {
+        return shards[Math.floorMod(Long.hashCode(productId), SHARDS)];
+    }
+
+    // Always in shard index order, so two multi-product holds cannot deadlock
+    private List<Shard> lockShards(Collection<Long> productIds) {
+        List<Shard> locked = productIds.stream()
+                .map(productId -> Math.floorMod(Long.hashCode(productId), SHARDS))
+                .distinct()
+                .sorted()
+                .map(index -> shards[index])
+                .toList();
+        locked.forEach(shard -> shard.lock.lock());
+        return locked;
+    }
+
+    private static void unlock(List<Shard> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            locked.get(i).lock.unlock();
+        }
+    }
+
+    public static final class Hold {
+        @Getter
+        private final String id;
+        @Getter
+        private final Long userId;
+        @Getter
+        private final Map<Long, Integer> quantities;
+        @Getter
+        private final long expiresAt;
+        private final AtomicInteger state;
+
+        Hold(String id, Long userId, Map<Long, Integer> quantities, long expiresAt, int state) {
+            this.id = id;
+            this.userId = userId;
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+            this.state = new AtomicInteger(state);
+        }
+    }
+
+    @Getter
+    public static class InsufficientStockException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Long> productIds;
+
+        public InsufficientStockException(List<Long> productIds) {
+            super("Insufficient stock for products " + productIds);
+            this.productIds = productIds;
+        }
+    }
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Sku> skus = new HashMap<>();
+    }
+
+    /**
+     * Guarded by the shard lock. Settling entries are {confirmedAt, quantity}, in confirm order.
+     */
+    private static final class Sku {
+        int stock;
+        int held;
+        int settlingQuantity;
+        final Deque<long[]> settling = new ArrayDeque<>();
+
+        int available() {
+            return stock - held - settlingQuantity;
+        }
+    }
+}
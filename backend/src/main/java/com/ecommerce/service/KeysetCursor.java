@@ -0,0 +1,88 @@
+package com.ecommerce.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque cursor for keyset pagination: the sort key values of the last row returned,
+ * tagged with their type and Base64url-encoded so clients just echo it back.
+ */
+final class KeysetCursor {
+    private static final String ENTRY_SEPARATOR = "\u001E";
+    private static final String FIELD_SEPARATOR = "\u001F";
+    
+    private KeysetCursor() {
+    }
+    
+    static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            for (String entry : raw.split(ENTRY_SEPARATOR)) {
+                String[] parts = entry.split(FIELD_SEPARATOR, 3);
+                keys.put(parts[0], parseValue(parts[1], parts[2]));
+            }
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        
+        Set<String> sortProperties = sort.stream()
+                .map(Sort.Order::getProperty)
+                .collect(Collectors.toSet());
+        if (!keys.keySet().equals(sortProperties)) {
+            throw new RuntimeException("Cursor does not match the requested sort order");
+        }
+        return ScrollPosition.forward(keys);
+    }
+    
+    static String nextCursor(Window<?> window) {
+        if (window.isEmpty() || !window.hasNext()) {
+            return null;
+        }
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        return encode(position.getKeys());
+    }
+    
+    private static String encode(Map<String, ?> keys) {
+        String raw = keys.entrySet().stream()
+                .map(entry -> entry.getKey() + FIELD_SEPARATOR + formatValue(entry.getValue()))
+                .collect(Collectors.joining(ENTRY_SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String formatValue(Object value) {
+        if (value instanceof Long) return "L" + FIELD_SEPARATOR + value;
+        if (value instanceof Integer) return "I" + FIELD_SEPARATOR + value;
+        if (value instanceof BigDecimal decimal) return "D" + FIELD_SEPARATOR + decimal.toPlainString();
+        if (value instanceof LocalDateTime) return "T" + FIELD_SEPARATOR + value;
+        if (value instanceof Boolean) return "B" + FIELD_SEPARATOR + value;
+        if (value instanceof String) return "S" + FIELD_SEPARATOR + value;
+        throw new IllegalStateException("Unsupported cursor key type: " + (value != null ? value.getClass() : null));
+    }
+    
+    private static Object parseValue(String type, String value) {
+        return switch (type) {
+            case "L" -> Long.valueOf(value);
+            case "I" -> Integer.valueOf(value);
+            case "D" -> new BigDecimal(value);
+            case "T" -> LocalDateTime.parse(value);
+            case "B" -> Boolean.valueOf(value);
+            case "S" -> value;
+            default -> throw new IllegalArgumentException("Unknown cursor key type: " + type);
+        };
+    }
+}
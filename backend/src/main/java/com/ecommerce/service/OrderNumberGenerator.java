@@ -0,0 +1,10 @@
+package com.ecommerce.service;
+
+/**
+ * Source of order numbers. Implementations must be thread-safe and never hand out the same
+ * number twice, including across backend instances sharing the database.
+ */
+public interface OrderNumberGenerator {
+    
+    String next();
+}
@@ -2,16 +2,25 @@ package com.ecommerce.service;
 
 import com.ecommerce.dto.*;
 import com.ecommerce.entity.*;
+import com.ecommerce.event.CheckoutHoldEvent;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.event.ProductChangedEvent;
 import com.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,10 +31,28 @@ public class OrderService {
     private final CartItemRepository cartItemRepository;
     private final CouponRepository couponRepository;
     private final UserRepository userRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final StockService stockService;
+    private final InventoryReservations inventoryReservations;
+    private final CouponRedemptions couponRedemptions;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final ApplicationEventPublisher eventPublisher;
     
+    /**
+     * Places an order from the cart rows. Callers flush the user's cart first, outside this
+     * transaction, so the order never waits on the cart store's flush.
+     */
     @Transactional
     public OrderDTO createOrder(Long userId, CreateOrderRequest request) {
+        return createOrder(userId, request, null);
+    }
+    
+    /**
+     * As above, but refuses the order unless the cart still holds exactly the expected quantities
+     * (product id to quantity), for a checkout the user confirmed earlier.
+     */
+    @Transactional
+    public OrderDTO createOrder(Long userId, CreateOrderRequest request, Map<Long, Integer> expectedQuantities) {
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
         
@@ -33,6 +60,21 @@ public class OrderService {
             throw new RuntimeException("Cart is empty");
         }
         
+        // Sold-out products are turned away here, before any product row is locked
+        Map<Long, Integer> quantities = cart.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity, Integer::sum));
+        if (expectedQuantities != null && !expectedQuantities.equals(quantities)) {
+            throw new RuntimeException("Cart changed after checkout was submitted, please check out again");
+        }
+        String holdId = request.getHoldId() != null && !request.getHoldId().isBlank() ? request.getHoldId() : null;
+        InventoryReservations.Hold hold;
+        try {
+            hold = inventoryReservations.claimForCheckout(holdId, userId, quantities);
+        } catch (InventoryReservations.InsufficientStockException e) {
+            throw insufficientStock(cart, e.getProductIds());
+        }
+        eventPublisher.publishEvent(new CheckoutHoldEvent(hold.getId(), !hold.getId().equals(holdId)));
+        
         User user = userRepository.findById(userId).orElseThrow();
         
         BigDecimal subtotal = cart.getItems().stream()
@@ -42,14 +84,9 @@ public class OrderService {
         BigDecimal discount = BigDecimal.ZERO;
         Coupon coupon = null;
         if (request.getCouponCode() != null && !request.getCouponCode().isEmpty()) {
-            coupon = couponRepository.findByCodeAndIsActiveTrue(request.getCouponCode())
-                    .orElseThrow(() -> new RuntimeException("Invalid coupon"));
-            if (!coupon.isValid()) {
-                throw new RuntimeException("Coupon expired or limit reached");
-            }
+            coupon = usableCoupon(request.getCouponCode());
             discount = coupon.calculateDiscount(subtotal);
-            coupon.setUsedCount(coupon.getUsedCount() + 1);
-            couponRepository.save(coupon);
+            couponRedemptions.redeem(coupon);
         }
         
         BigDecimal shippingFee = subtotal.compareTo(BigDecimal.valueOf(500000)) >= 0 
@@ -58,13 +95,13 @@ public class OrderService {
         
         Order order = Order.builder()
                 .user(user)
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumberGenerator.next())
                 .subtotal(subtotal)
                 .discountAmount(discount)
                 .shippingFee(shippingFee)
                 .totalAmount(total)
                 .coupon(coupon)
-                .paymentMethod(Order.PaymentMethod.valueOf(request.getPaymentMethod()))
+                .paymentMethod(paymentMethod(request.getPaymentMethod()))
                 .shippingName(request.getShippingName())
                 .shippingPhone(request.getShippingPhone())
                 .shippingAddress(request.getShippingAddress())
@@ -83,25 +120,65 @@ public class OrderService {
                     .subtotal(product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())))
                     .build();
             order.getItems().add(orderItem);
-            
-            product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
-            product.setSoldQuantity(product.getSoldQuantity() + cartItem.getQuantity());
-            productRepository.save(product);
+        }
+        
+        List<Long> outOfStock = stockService.decrement(quantities);
+        if (!outOfStock.isEmpty()) {
+            throw insufficientStock(cart, outOfStock);
         }
         
         orderRepository.save(order);
         cartItemRepository.deleteByCartId(cart.getId());
+        eventPublisher.publishEvent(ProductChangedEvent.of(productIdsOf(order)));
+        eventPublisher.publishEvent(new OrderPlacedEvent(order.getId(), userId, productIdsOf(order)));
         
         return toDTO(order);
     }
     
+    /**
+     * The checks {@link #createOrder} makes on the request alone, for callers that accept a
+     * checkout before placing it. The coupon is checked again when the order is placed.
+     */
+    @Transactional(readOnly = true)
+    public void validateCheckout(CreateOrderRequest request) {
+        paymentMethod(request.getPaymentMethod());
+        if (request.getCouponCode() != null && !request.getCouponCode().isEmpty()) {
+            usableCoupon(request.getCouponCode());
+        }
+    }
+    
+    private Coupon usableCoupon(String code) {
+        Coupon coupon = couponRepository.findByCodeAndIsActiveTrue(code)
+                .orElseThrow(() -> new RuntimeException("Invalid coupon"));
+        if (!coupon.isValid()) {
+            throw new RuntimeException("Coupon expired or limit reached");
+        }
+        return coupon;
+    }
+    
+    private static Order.PaymentMethod paymentMethod(String value) {
+        try {
+            return Order.PaymentMethod.valueOf(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Invalid payment method: " + value);
+        }
+    }
+    
     public Page<OrderDTO> getUserOrders(Long userId, int page, int size) {
         return orderRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(page, size))
                 .map(this::toDTO);
     }
     
+    public CursorPageResponse<OrderDTO> scrollUserOrders(Long userId, String cursor, int size) {
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        Window<Order> window = orderRepository.findByUserId(userId, KeysetCursor.decode(cursor, sort), sort, Limit.of(size));
+        return CursorPageResponse.from(window,
+                window.getContent().stream().map(this::toDTO).collect(Collectors.toList()),
+                KeysetCursor.nextCursor(window));
+    }
+    
     public OrderDTO getOrderById(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         return toDTO(order);
     }
@@ -119,12 +196,8 @@ public class OrderService {
         }
         
         order.setStatus(Order.OrderStatus.CANCELLED);
-        for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-            product.setSoldQuantity(product.getSoldQuantity() - item.getQuantity());
-            productRepository.save(product);
-        }
+        stockService.restock(quantitiesOf(order));
+        eventPublisher.publishEvent(ProductChangedEvent.of(productIdsOf(order)));
         
         return toDTO(orderRepository.save(order));
     }
@@ -149,9 +222,41 @@ public class OrderService {
         }
     }
     
-    private String generateOrderNumber() {
-        return "ORD" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) 
-                + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+    private List<Long> productIdsOf(Order order) {
+        return order.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toList());
+    }
+    
+    public StockHoldDTO createStockHold(Long userId) {
+        Map<Long, Integer> quantities = cartStore.get(userId).quantities();
+        if (quantities.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        
+        InventoryReservations.Hold hold = inventoryReservations.hold(userId, quantities);
+        return StockHoldDTO.builder()
+                .holdId(hold.getId())
+                .quantities(hold.getQuantities())
+                .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(hold.getExpiresAt()), ZoneId.systemDefault()))
+                .build();
+    }
+    
+    public void releaseStockHold(Long userId, String holdId) {
+        inventoryReservations.release(holdId, userId);
+    }
+    
+    private RuntimeException insufficientStock(Cart cart, List<Long> productIds) {
+        String names = cart.getItems().stream()
+                .filter(item -> productIds.contains(item.getProduct().getId()))
+                .map(item -> item.getProduct().getName())
+                .collect(Collectors.joining(", "));
+        return new RuntimeException("Insufficient stock: " + names);
+    }
+    
+    private Map<Long, Integer> quantitiesOf(Order order) {
+        return order.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), OrderItem::getQuantity, Integer::sum));
     }
     
     private OrderDTO toDTO(Order order) {
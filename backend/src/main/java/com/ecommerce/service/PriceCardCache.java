@@ -0,0 +1,136 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PriceCardDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of {@link PriceCardDTO}s for cart rendering. Misses are loaded together in one
+ * query. Cached products are reloaded when they change, so carts show current prices and stock.
+ * When the cache is full, entries are evicted in CLOCK order: an entry read since the last sweep
+ * gets a second chance.
+ */
+@Component
+@Slf4j
+public class PriceCardCache {
+
+    private final ProductRepository productRepository;
+    private final int capacity;
+
+    private final Map<Long, Slot> cards = new ConcurrentHashMap<>();
+    private final Queue<Long> clock = new ConcurrentLinkedQueue<>();
+    // Bumped at the start of every change so a miss loaded before the change is returned but not
+    // cached; a change bumps it before it looks at which products are cached
+    private final AtomicLong epoch = new AtomicLong();
+
+    public PriceCardCache(ProductRepository productRepository,
+                          @Value("${app.cart.price-card-capacity:10000}") int capacity) {
+        this.productRepository = productRepository;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Cards for the given products; ids that do not exist are left out.
+     */
+    public Map<Long, PriceCardDTO> getAll(Collection<Long> productIds) {
+        Map<Long, PriceCardDTO> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            Slot slot = cards.get(productId);
+            if (slot != null) {
+                slot.touch();
+                result.put(productId, slot.card);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long loadedAt = epoch.get();
+        for (PriceCardDTO card : productRepository.findPriceCardsByIdIn(missing)) {
+            result.put(card.getId(), card);
+            Slot slot = new Slot(card);
+            if (epoch.get() != loadedAt || cards.putIfAbsent(card.getId(), slot) != null) {
+                continue;
+            }
+            // A change that started between the check and the put may have missed this slot
+            if (epoch.get() != loadedAt) {
+                cards.remove(card.getId(), slot);
+            } else {
+                clock.add(card.getId());
+            }
+        }
+        evictOverflow();
+        return result;
+    }
+
+    void applyProductChange(ProductChangedEvent event) {
+        epoch.incrementAndGet();
+        if (event.isFullRefresh()) {
+            cards.clear();
+            clock.clear();
+            return;
+        }
+
+        List<Long> cached = event.getProductIds().stream().filter(cards::containsKey).toList();
+        if (cached.isEmpty()) {
+            return;
+        }
+        Set<Long> gone = new HashSet<>(cached);
+        for (PriceCardDTO card : productRepository.findPriceCardsByIdIn(cached)) {
+            gone.remove(card.getId());
+            cards.computeIfPresent(card.getId(), (id, slot) -> new Slot(card, slot.referenced));
+        }
+        gone.forEach(cards::remove);
+    }
+
+    private void evictOverflow() {
+        while (cards.size() > capacity) {
+            Long productId = clock.poll();
+            if (productId == null) {
+                return;
+            }
+            Slot slot = cards.get(productId);
+            if (slot == null) {
+                continue;
+            }
+            if (slot.referenced) {
+                slot.referenced = false;
+                clock.add(productId);
+            } else if (!cards.remove(productId, slot)) {
+                // A product change swapped in a new slot meanwhile; it stays in the ring
+                clock.add(productId);
+            }
+        }
+    }
+
+    private static final class Slot {
+        final PriceCardDTO card;
+        volatile boolean referenced;
+
+        Slot(PriceCardDTO card) {
+            this(card, false);
+        }
+
+        Slot(PriceCardDTO card, boolean referenced) {
+            this.card = card;
+            this.referenced = referenced;
+        }
+
+        void touch() {
+            // Skip the volatile write when the flag is already set; this is the hot path
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.BulkUpdateResult;
+import com.ecommerce.dto.ProductImportResult;
+import com.ecommerce.dto.ProductPatchDTO;
+import com.ecommerce.dto.ProductRowDTO;
+import com.ecommerce.entity.Category;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk product writes: streaming import/export and batched patches. Input is written with JDBC
+ * batches, each batch in its own transaction, so a bad batch never rolls back earlier ones
+ * and memory stays flat regardless of file size.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBulkService {
+
+    static final List<String> COLUMNS = List.of("id", "categoryId", "categoryName", "name", "description", "price",
+            "originalPrice", "stockQuantity", "soldQuantity", "imageUrl", "isFeatured", "isActive");
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO products (category_id, name, description, price, original_price, "
+            + "stock_quantity, sold_quantity, image_url, is_active, is_featured, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE products SET category_id = COALESCE(?, category_id), "
+            + "name = COALESCE(?, name), description = COALESCE(?, description), price = COALESCE(?, price), "
+            + "original_price = COALESCE(?, original_price), stock_quantity = COALESCE(?, stock_quantity), "
+            + "image_url = COALESCE(?, image_url), is_active = COALESCE(?, is_active), "
+            + "is_featured = COALESCE(?, is_featured), updated_at = ? WHERE id = ?";
+
+    private static final String PATCH_SQL = "UPDATE products SET price = COALESCE(?, price), "
+            + "original_price = COALESCE(?, original_price), stock_quantity = COALESCE(?, stock_quantity), "
+            + "is_featured = COALESCE(?, is_featured), updated_at = ? WHERE id = ?";
+
+    private static final String EXPORT_SQL = "SELECT p.id, p.category_id, c.name AS category_name, p.name, p.description, "
+            + "p.price, p.original_price, p.stock_quantity, p.sold_quantity, p.image_url, p.is_featured, p.is_active "
+            + "FROM products p JOIN categories c ON c.id = p.category_id ORDER BY p.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductImportResult importProducts(InputStream input, String format) {
+        long started = System.currentTimeMillis();
+        ImportRun run = new ImportRun(categoryRepository.findAll());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if ("csv".equalsIgnoreCase(format)) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read import file: " + e.getMessage());
+        } finally {
+            run.flush();
+            if (run.created + run.updated > 0) {
+                eventPublisher.publishEvent(ProductChangedEvent.all());
+            }
+        }
+
+        long duration = System.currentTimeMillis() - started;
+        log.info("Product import finished: {} rows, {} created, {} updated, {} failed in {} ms",
+                run.totalRows, run.created, run.updated, run.failed, duration);
+        return ProductImportResult.builder()
+                .totalRows(run.totalRows)
+                .created(run.created)
+                .updated(run.updated)
+                .failed(run.failed)
+                .durationMs(duration)
+                .errors(run.errors)
+                .build();
+    }
+
+    /**
+     * Applies price/stock/featured patches with one batched UPDATE per chunk. Each chunk commits
+     * separately; one change event for every product touched is published at the end. If a chunk
+     * is rejected the run stops there, and the result lists the products that were not patched.
+     */
+    public BulkUpdateResult bulkUpdate(List<ProductPatchDTO> patches) {
+        for (ProductPatchDTO patch : patches) {
+            if (patch.getId() == null) {
+                throw new RuntimeException("Product id is required");
+            }
+            if (patch.getPrice() != null && patch.getPrice().signum() < 0) {
+                throw new RuntimeException("Price must not be negative for product " + patch.getId());
+            }
+            if (patch.getStockQuantity() != null && patch.getStockQuantity() < 0) {
+                throw new RuntimeException("Stock quantity must not be negative for product " + patch.getId());
+            }
+        }
+
+        List<Long> changed = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        List<Long> notApplied = new ArrayList<>();
+        String error = null;
+        try {
+            for (int from = 0; from < patches.size(); from += BATCH_SIZE) {
+                List<ProductPatchDTO> batch = patches.subList(from, Math.min(from + BATCH_SIZE, patches.size()));
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                try {
+                    int[] counts = transactionTemplate.execute(status ->
+                            jdbcTemplate.batchUpdate(PATCH_SQL, patchSetter(batch, now)));
+                    for (int i = 0; i < batch.size(); i++) {
+                        (counts[i] == 0 ? notFound : changed).add(batch.get(i).getId());
+                    }
+                } catch (DataAccessException e) {
+                    error = "Batch rejected by database: " + e.getMostSpecificCause().getMessage();
+                    patches.subList(from, patches.size()).forEach(patch -> notApplied.add(patch.getId()));
+                    log.warn("Bulk product update stopped after {} of {} patches", from, patches.size(), e);
+                    break;
+                }
+            }
+        } finally {
+            if (!changed.isEmpty()) {
+                eventPublisher.publishEvent(ProductChangedEvent.of(changed));
+            }
+        }
+
+        log.info("Bulk product update: {} requested, {} updated, {} not found, {} not applied",
+                patches.size(), changed.size(), notFound.size(), notApplied.size());
+        return BulkUpdateResult.builder()
+                .requested(patches.size())
+                .updated(changed.size())
+                .notFound(notFound)
+                .notApplied(notApplied)
+                .error(error)
+                .build();
+    }
+
+    public void exportProducts(OutputStream output, String format) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        ObjectWriter writer = objectMapper.writerFor(ProductRowDTO.class);
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (csv) {
+            out.write(CsvCodec.formatRecord(COLUMNS));
+        }
+
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // Tells MySQL Connector/J to stream rows instead of buffering the whole result
+                statement.setFetchSize(Integer.MIN_VALUE);
+                return statement;
+            }, (ResultSet rs) -> {
+                ProductRowDTO row = toRow(rs);
+                try {
+                    if (csv) {
+                        out.write(CsvCodec.formatRecord(toFields(row)));
+                    } else {
+                        out.write(writer.writeValueAsString(row));
+                        out.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        log.info("Product export finished: {} rows", rows[0]);
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        String line;
+        long rowNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            rowNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.accept(rowNumber, objectMapper.readValue(line, ProductRowDTO.class));
+            } catch (JsonProcessingException e) {
+                run.reject(rowNumber, "Invalid row: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        List<String> header = CsvCodec.readRecord(reader);
+        if (header == null) {
+            return;
+        }
+
+        List<String> record;
+        long rowNumber = 1;
+        while ((record = CsvCodec.readRecord(reader)) != null) {
+            rowNumber++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < Math.min(header.size(), record.size()); i++) {
+                String value = record.get(i).trim();
+                if (!value.isEmpty()) {
+                    values.put(header.get(i).trim(), value);
+                }
+            }
+            try {
+                run.accept(rowNumber, objectMapper.convertValue(values, ProductRowDTO.class));
+            } catch (IllegalArgumentException e) {
+                run.reject(rowNumber, "Invalid value: " + e.getMessage());
+            }
+        }
+    }
+
+    private static ProductRowDTO toRow(ResultSet rs) throws SQLException {
+        return ProductRowDTO.builder()
+                .id(rs.getLong("id"))
+                .categoryId(rs.getLong("category_id"))
+                .categoryName(rs.getString("category_name"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .price(rs.getBigDecimal("price"))
+                .originalPrice(rs.getBigDecimal("original_price"))
+                .stockQuantity(rs.getObject("stock_quantity", Integer.class))
+                .soldQuantity(rs.getObject("sold_quantity", Integer.class))
+                .imageUrl(rs.getString("image_url"))
+                .isFeatured(rs.getObject("is_featured", Boolean.class))
+                .isActive(rs.getObject("is_active", Boolean.class))
+                .build();
+    }
+
+    private static List<String> toFields(ProductRowDTO row) {
+        return Arrays.asList(
+                Objects.toString(row.getId(), null),
+                Objects.toString(row.getCategoryId(), null),
+                row.getCategoryName(),
+                row.getName(),
+                row.getDescription(),
+                row.getPrice() != null ? row.getPrice().toPlainString() : null,
+                row.getOriginalPrice() != null ? row.getOriginalPrice().toPlainString() : null,
+                Objects.toString(row.getStockQuantity(), null),
+                Objects.toString(row.getSoldQuantity(), null),
+                row.getImageUrl(),
+                Objects.toString(row.getIsFeatured(), null),
+                Objects.toString(row.getIsActive(), null));
+    }
+
+    private record PendingRow(long rowNumber, Long categoryId, ProductRowDTO row) {
+    }
+
+    /**
+     * Mutable state of one import: validated rows waiting for the next batch, counters and
+     * the category lookup built once up front.
+     */
+    private class ImportRun {
+        private final Set<Long> categoryIds = new HashSet<>();
+        private final Map<String, Long> categoryIdsByName = new HashMap<>();
+        private final List<PendingRow> inserts = new ArrayList<>();
+        private final List<PendingRow> updates = new ArrayList<>();
+        private final List<ProductImportResult.RowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long created;
+        private long updated;
+        private long failed;
+
+        ImportRun(List<Category> categories) {
+            for (Category category : categories) {
+                categoryIds.add(category.getId());
+                categoryIdsByName.putIfAbsent(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+
+        void accept(long rowNumber, ProductRowDTO row) {
+            totalRows++;
+            boolean insert = row.getId() == null;
+
+            Long categoryId = null;
+            if (row.getCategoryId() != null) {
+                if (!categoryIds.contains(row.getCategoryId())) {
+                    reject(rowNumber, "Unknown category id " + row.getCategoryId(), false);
+                    return;
+                }
+                categoryId = row.getCategoryId();
+            } else if (row.getCategoryName() != null && !row.getCategoryName().isBlank()) {
+                categoryId = categoryIdsByName.get(row.getCategoryName().trim().toLowerCase(Locale.ROOT));
+                if (categoryId == null) {
+                    reject(rowNumber, "Unknown category " + row.getCategoryName(), false);
+                    return;
+                }
+            }
+
+            if (insert && (row.getName() == null || row.getName().isBlank())) {
+                reject(rowNumber, "name is required", false);
+                return;
+            }
+            if (insert && row.getPrice() == null) {
+                reject(rowNumber, "price is required", false);
+                return;
+            }
+            if (insert && categoryId == null) {
+                reject(rowNumber, "categoryId or categoryName is required", false);
+                return;
+            }
+            if (row.getPrice() != null && row.getPrice().signum() < 0) {
+                reject(rowNumber, "price must not be negative", false);
+                return;
+            }
+            if (row.getStockQuantity() != null && row.getStockQuantity() < 0) {
+                reject(rowNumber, "stockQuantity must not be negative", false);
+                return;
+            }
+
+            (insert ? inserts : updates).add(new PendingRow(rowNumber, categoryId, row));
+            if (inserts.size() + updates.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(long rowNumber, String message) {
+            reject(rowNumber, message, true);
+        }
+
+        private void reject(long rowNumber, String message, boolean countRow) {
+            if (countRow) {
+                totalRows++;
+            }
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ProductImportResult.RowError.builder().row(rowNumber).message(message).build());
+            }
+        }
+
+        void flush() {
+            if (inserts.isEmpty() && updates.isEmpty()) {
+                return;
+            }
+
+            List<PendingRow> batchInserts = List.copyOf(inserts);
+            List<PendingRow> batchUpdates = List.copyOf(updates);
+            inserts.clear();
+            updates.clear();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            try {
+                int[] updateCounts = transactionTemplate.execute(status -> {
+                    if (!batchInserts.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_SQL, insertSetter(batchInserts, now));
+                    }
+                    return batchUpdates.isEmpty()
+                            ? new int[0]
+                            : jdbcTemplate.batchUpdate(UPDATE_SQL, updateSetter(batchUpdates, now));
+                });
+                created += batchInserts.size();
+                for (int i = 0; i < batchUpdates.size(); i++) {
+                    if (updateCounts[i] == 0) {
+                        reject(batchUpdates.get(i).rowNumber(), "Product " + batchUpdates.get(i).row().getId() + " not found", false);
+                    } else {
+                        updated++;
+                    }
+                }
+            } catch (DataAccessException e) {
+                String message = "Batch rejected by database: " + e.getMostSpecificCause().getMessage();
+                batchInserts.forEach(pending -> reject(pending.rowNumber(), message, false));
+                batchUpdates.forEach(pending -> reject(pending.rowNumber(), message, false));
+            }
+            log.info("Product import progress: {} rows read, {} created, {} updated, {} failed",
+                    totalRows, created, updated, failed);
+        }
+    }
+
+    private static BatchPreparedStatementSetter insertSetter(List<PendingRow> rows, Timestamp now) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingRow pending = rows.get(i);
+                ProductRowDTO row = pending.row();
+                ps.setLong(1, pending.categoryId());
+                ps.setString(2, row.getName().trim());
+                ps.setObject(3, row.getDescription(), Types.LONGVARCHAR);
+                ps.setBigDecimal(4, row.getPrice());
+                ps.setObject(5, row.getOriginalPrice(), Types.DECIMAL);
+                ps.setInt(6, row.getStockQuantity() != null ? row.getStockQuantity() : 0);
+                ps.setObject(7, row.getImageUrl(), Types.VARCHAR);
+                ps.setBoolean(8, row.getIsActive() == null || row.getIsActive());
+                ps.setBoolean(9, Boolean.TRUE.equals(row.getIsFeatured()));
+                ps.setTimestamp(10, now);
+                ps.setTimestamp(11, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        };
+    }
+
+    private static BatchPreparedStatementSetter patchSetter(List<ProductPatchDTO> patches, Timestamp now) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProductPatchDTO patch = patches.get(i);
+                ps.setObject(1, patch.getPrice(), Types.DECIMAL);
+                ps.setObject(2, patch.getOriginalPrice(), Types.DECIMAL);
+                ps.setObject(3, patch.getStockQuantity(), Types.INTEGER);
+                ps.setObject(4, patch.getIsFeatured(), Types.BOOLEAN);
+                ps.setTimestamp(5, now);
+                ps.setLong(6, patch.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return patches.size();
+            }
+        };
+    }
+
+    private static BatchPreparedStatementSetter updateSetter(List<PendingRow> rows, Timestamp now) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingRow pending = rows.get(i);
+                ProductRowDTO row = pending.row();
+                ps.setObject(1, pending.categoryId(), Types.BIGINT);
+                ps.setObject(2, row.getName() != null && !row.getName().isBlank() ? row.getName().trim() : null, Types.VARCHAR);
+                ps.setObject(3, row.getDescription(), Types.LONGVARCHAR);
+                ps.setObject(4, row.getPrice(), Types.DECIMAL);
+                ps.setObject(5, row.getOriginalPrice(), Types.DECIMAL);
+                ps.setObject(6, row.getStockQuantity(), Types.INTEGER);
+                ps.setObject(7, row.getImageUrl(), Types.VARCHAR);
+                ps.setObject(8, row.getIsActive(), Types.BOOLEAN);
+                ps.setObject(9, row.getIsFeatured(), Types.BOOLEAN);
+                ps.setTimestamp(10, now);
+                ps.setLong(11, row.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PageResponse;
+import com.ecommerce.dto.ProductCardDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductDetailDTO;
+import com.ecommerce.dto.ReviewDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Builds the product screen payload by running its lookups concurrently. The product itself is
+ * required; reviews, wishlist status and related products are best effort within the timeout.
+ */
+@Service
+@Slf4j
+public class ProductDetailService {
+    
+    private static final int REVIEW_PAGE_SIZE = 10;
+    private static final int RELATED_LIMIT = 10;
+    
+    private final ProductService productService;
+    private final ReviewService reviewService;
+    private final WishlistService wishlistService;
+    private final Executor executor;
+    private final long timeoutMs;
+    
+    public ProductDetailService(ProductService productService,
+                                ReviewService reviewService,
+                                WishlistService wishlistService,
+                                @Qualifier("productDetailExecutor") Executor executor,
+                                @Value("${app.product-detail.timeout-ms:800}") long timeoutMs) {
+        this.productService = productService;
+        this.reviewService = reviewService;
+        this.wishlistService = wishlistService;
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+    }
+    
+    public ProductDetailDTO getProductDetail(Long productId, Long userId) {
+        CompletableFuture<ProductDTO> product = branch(() -> productService.getProductById(productId));
+        CompletableFuture<Page<ReviewDTO>> reviews = branch(() -> reviewService.getProductReviews(productId, 0, REVIEW_PAGE_SIZE));
+        CompletableFuture<Boolean> inWishlist = userId != null
+                ? branch(() -> wishlistService.isInWishlist(userId, productId))
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<List<ProductCardDTO>> related = branch(() -> productService.getRelatedProducts(productId, RELATED_LIMIT));
+        
+        ProductDTO productDTO;
+        try {
+            productDTO = product.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Product is temporarily unavailable");
+        }
+        
+        List<String> unavailable = new ArrayList<>();
+        Page<ReviewDTO> reviewPage = joinOrNull(reviews, "reviews", productId, unavailable);
+        return ProductDetailDTO.builder()
+                .product(productDTO)
+                .reviews(reviewPage != null ? PageResponse.from(reviewPage, reviewPage.getContent()) : null)
+                .inWishlist(joinOrNull(inWishlist, "inWishlist", productId, unavailable))
+                .related(joinOrNull(related, "related", productId, unavailable))
+                .unavailable(unavailable)
+                .build();
+    }
+    
+    private <T> CompletableFuture<T> branch(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, executor).orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private <T> T joinOrNull(CompletableFuture<T> future, String branch, Long productId, List<String> unavailable) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            log.warn("Product detail {} for product {} unavailable: {}", branch, productId, e.getMessage());
+            unavailable.add(branch);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.FacetedProductsDTO;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.ProductRating;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap indexes over the active catalog for faceted filtering. Every active product gets
+ * a dense ordinal; each facet value is a BitSet over those ordinals, so a multi-filter
+ * query is a handful of word-wise ANDs and facet counts are cardinalities.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+    // Upper bounds (VND) of the price buckets; the last bucket is open-ended
+    private static final long[] PRICE_BUCKET_BOUNDS = {1_000_000, 5_000_000, 10_000_000, 20_000_000, 30_000_000};
+    private static final int MAX_RATING = 5;
+    
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductRatingService productRatingService;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializes rebuilds and incremental updates, each from its read through to its write
+    private final Object updateLock = new Object();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private long[] productIds = new long[0];
+    private long[] categoryIds = new long[0];
+    private double[] prices = new double[0];
+    private int[] soldQuantities = new int[0];
+    private String[] names = new String[0];
+    private LocalDateTime[] createdAts = new LocalDateTime[0];
+    private int nextOrdinal;
+    
+    private final BitSet live = new BitSet();
+    private final BitSet onSale = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final BitSet[] byPriceBucket = newBitSets(PRICE_BUCKET_BOUNDS.length + 1);
+    private final BitSet[] byMinRating = newBitSets(MAX_RATING + 1);
+    private Map<Long, List<Long>> childCategories = Map.of();
+    private volatile boolean built;
+    
+    public record Result(List<Long> productIds, FacetedProductsDTO.Facets facets) {
+    }
+    
+    public Result search(ProductFilter filter, String sortBy, boolean descending) {
+        if (!built) {
+            ensureBuilt();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Comparator<Long> order = comparator(sortBy, descending);
+            BitSet category = filter.getCategoryId() != null ? categorySubtree(filter.getCategoryId()) : null;
+            BitSet price = filter.getMinPrice() != null || filter.getMaxPrice() != null
+                    ? priceRange(filter.getMinPrice(), filter.getMaxPrice()) : null;
+            BitSet rating = filter.getMinRating() != null
+                    ? byMinRating[Math.max(0, Math.min(MAX_RATING, filter.getMinRating()))] : null;
+            BitSet sale = Boolean.TRUE.equals(filter.getOnSale()) ? onSale : null;
+            BitSet stock = Boolean.TRUE.equals(filter.getInStock()) ? inStock : null;
+            
+            BitSet matches = intersect(category, price, rating, sale, stock);
+            List<Long> ids = new ArrayList<>(matches.cardinality());
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                ids.add(productIds[ordinal]);
+            }
+            ids.sort(order);
+            
+            // Each dimension is counted with every filter applied except its own
+            return new Result(ids, FacetedProductsDTO.Facets.builder()
+                    .categories(categoryCounts(intersect(null, price, rating, sale, stock)))
+                    .priceRanges(priceCounts(intersect(category, null, rating, sale, stock)))
+                    .minRating(ratingCounts(intersect(category, price, null, sale, stock)))
+                    .onSale(andCount(intersect(category, price, rating, null, stock), onSale))
+                    .inStock(andCount(intersect(category, price, rating, sale, null), inStock))
+                    .build());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // The same sort keys as the other product listings
+    private Comparator<Long> comparator(String sortBy, boolean descending) {
+        Comparator<Long> comparator = switch (sortBy) {
+            case "id" -> Comparator.naturalOrder();
+            case "price" -> Comparator.comparingDouble(id -> prices[ordinals.get(id)]);
+            case "soldQuantity" -> Comparator.comparingInt(id -> soldQuantities[ordinals.get(id)]);
+            case "name" -> Comparator.comparing(id -> names[ordinals.get(id)], String.CASE_INSENSITIVE_ORDER);
+            case "createdAt" -> Comparator.comparing(id -> createdAts[ordinals.get(id)],
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> throw new RuntimeException("Unsupported sort field: " + sortBy);
+        };
+        comparator = comparator.thenComparing(Comparator.naturalOrder());
+        return descending ? comparator.reversed() : comparator;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    void applyProductChange(ProductChangedEvent event) {
+        synchronized (updateLock) {
+            if (event.isFullRefresh()) {
+                rebuild();
+                return;
+            }
+            
+            List<Product> products = productRepository.findAllWithCategoryByIdIn(event.getProductIds());
+            Map<Long, ProductRating> ratings = productRatingService.getRatings(event.getProductIds());
+            Set<Long> missing = new HashSet<>(event.getProductIds());
+            lock.writeLock().lock();
+            try {
+                for (Product product : products) {
+                    missing.remove(product.getId());
+                    if (Boolean.TRUE.equals(product.getIsActive())) {
+                        index(product, ratings.get(product.getId()));
+                    } else {
+                        remove(product.getId());
+                    }
+                }
+                missing.forEach(this::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    private void ensureBuilt() {
+        synchronized (updateLock) {
+            if (!built) {
+                rebuild();
+            }
+        }
+    }
+    
+    private void rebuild() {
+        synchronized (updateLock) {
+            List<Product> products = productRepository.findAllActiveWithCategory();
+            Map<Long, ProductRating> ratings = productRatingService.getAllRatings();
+            Map<Long, List<Long>> children = new HashMap<>();
+            for (Category category : categoryRepository.findAll()) {
+                if (category.getParent() != null) {
+                    children.computeIfAbsent(category.getParent().getId(), id -> new ArrayList<>()).add(category.getId());
+                }
+            }
+            
+            lock.writeLock().lock();
+            try {
+                ordinals.clear();
+                freeOrdinals.clear();
+                nextOrdinal = 0;
+                live.clear();
+                onSale.clear();
+                inStock.clear();
+                byCategory.clear();
+                Arrays.stream(byPriceBucket).forEach(BitSet::clear);
+                Arrays.stream(byMinRating).forEach(BitSet::clear);
+                childCategories = children;
+                for (Product product : products) {
+                    index(product, ratings.get(product.getId()));
+                }
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Facet index built with {} products", products.size());
+        }
+    }
+    
+    private void index(Product product, ProductRating rating) {
+        Integer existing = ordinals.get(product.getId());
+        int ordinal;
+        if (existing != null) {
+            ordinal = existing;
+            clearBits(ordinal);
+        } else {
+            ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+            ensureCapacity(ordinal + 1);
+            ordinals.put(product.getId(), ordinal);
+        }
+        
+        double price = product.getPrice() != null ? product.getPrice().doubleValue() : 0;
+        productIds[ordinal] = product.getId();
+        categoryIds[ordinal] = product.getCategory().getId();
+        prices[ordinal] = price;
+        soldQuantities[ordinal] = product.getSoldQuantity() != null ? product.getSoldQuantity() : 0;
+        names[ordinal] = product.getName();
+        createdAts[ordinal] = product.getCreatedAt();
+        
+        live.set(ordinal);
+        byCategory.computeIfAbsent(categoryIds[ordinal], id -> new BitSet()).set(ordinal);
+        byPriceBucket[priceBucket(price)].set(ordinal);
+        double average = rating != null ? rating.getAverageRating() : 0;
+        for (int stars = 0; stars <= MAX_RATING && average >= stars; stars++) {
+            byMinRating[stars].set(ordinal);
+        }
+        if (product.getOriginalPrice() != null && product.getPrice() != null
+                && product.getOriginalPrice().compareTo(product.getPrice()) > 0) {
+            onSale.set(ordinal);
+        }
+        if (product.getStockQuantity() != null && product.getStockQuantity() > 0) {
+            inStock.set(ordinal);
+        }
+    }
+    
+    private void remove(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal != null) {
+            clearBits(ordinal);
+            names[ordinal] = null;
+            freeOrdinals.push(ordinal);
+        }
+    }
+    
+    private void clearBits(int ordinal) {
+        live.clear(ordinal);
+        onSale.clear(ordinal);
+        inStock.clear(ordinal);
+        BitSet category = byCategory.get(categoryIds[ordinal]);
+        if (category != null) {
+            category.clear(ordinal);
+        }
+        byPriceBucket[priceBucket(prices[ordinal])].clear(ordinal);
+        for (BitSet stars : byMinRating) {
+            stars.clear(ordinal);
+        }
+    }
+    
+    private BitSet categorySubtree(Long categoryId) {
+        BitSet result = new BitSet();
+        Deque<Long> pending = new ArrayDeque<>(List.of(categoryId));
+        while (!pending.isEmpty()) {
+            Long current = pending.pop();
+            BitSet products = byCategory.get(current);
+            if (products != null) {
+                result.or(products);
+            }
+            pending.addAll(childCategories.getOrDefault(current, List.of()));
+        }
+        return result;
+    }
+    
+    private BitSet priceRange(BigDecimal min, BigDecimal max) {
+        double low = min != null ? min.doubleValue() : Double.NEGATIVE_INFINITY;
+        double high = max != null ? max.doubleValue() : Double.POSITIVE_INFINITY;
+        BitSet result = new BitSet();
+        for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+            double bucketLow = bucket == 0 ? Double.NEGATIVE_INFINITY : PRICE_BUCKET_BOUNDS[bucket - 1];
+            double bucketHigh = bucket < PRICE_BUCKET_BOUNDS.length ? PRICE_BUCKET_BOUNDS[bucket] : Double.POSITIVE_INFINITY;
+            if (bucketHigh <= low || bucketLow > high) {
+                continue;
+            }
+            BitSet products = byPriceBucket[bucket];
+            if (bucketLow >= low && bucketHigh <= high) {
+                result.or(products);
+            } else {
+                // Only the buckets straddling a bound need a per-product price check
+                for (int ordinal = products.nextSetBit(0); ordinal >= 0; ordinal = products.nextSetBit(ordinal + 1)) {
+                    if (prices[ordinal] >= low && prices[ordinal] <= high) {
+                        result.set(ordinal);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+    
+    private Map<Long, Integer> categoryCounts(BitSet base) {
+        Map<Long, Integer> counts = new TreeMap<>();
+        byCategory.forEach((categoryId, products) -> {
+            int count = andCount(base, products);
+            if (count > 0) {
+                counts.put(categoryId, count);
+            }
+        });
+        return counts;
+    }
+    
+    private List<FacetedProductsDTO.PriceRangeFacet> priceCounts(BitSet base) {
+        List<FacetedProductsDTO.PriceRangeFacet> counts = new ArrayList<>();
+        for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+            counts.add(FacetedProductsDTO.PriceRangeFacet.builder()
+                    .min(bucket == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[bucket - 1]))
+                    .max(bucket < PRICE_BUCKET_BOUNDS.length ? BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[bucket]) : null)
+                    .count(andCount(base, byPriceBucket[bucket]))
+                    .build());
+        }
+        return counts;
+    }
+    
+    private Map<Integer, Integer> ratingCounts(BitSet base) {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (int stars = 1; stars <= MAX_RATING; stars++) {
+            counts.put(stars, andCount(base, byMinRating[stars]));
+        }
+        return counts;
+    }
+    
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+    
+    private static int andCount(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.and(b);
+        return result.cardinality();
+    }
+    
+    private static int priceBucket(double price) {
+        for (int bucket = 0; bucket < PRICE_BUCKET_BOUNDS.length; bucket++) {
+            if (price < PRICE_BUCKET_BOUNDS[bucket]) {
+                return bucket;
+            }
+        }
+        return PRICE_BUCKET_BOUNDS.length;
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, productIds.length * 2 + 16);
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        prices = Arrays.copyOf(prices, newCapacity);
+        soldQuantities = Arrays.copyOf(soldQuantities, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        createdAts = Arrays.copyOf(createdAts, newCapacity);
+    }
+    
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.ProductRating;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRatingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductRatingService {
+    
+    private final ProductRatingRepository productRatingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public Map<Long, ProductRating> getRatings(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return productRatingRepository.findByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductRating::getProductId, Function.identity()));
+    }
+    
+    public Map<Long, ProductRating> getAllRatings() {
+        return productRatingRepository.findAll().stream()
+                .collect(Collectors.toMap(ProductRating::getProductId, Function.identity()));
+    }
+    
+    public ProductRating getRating(Long productId) {
+        return productRatingRepository.findById(productId)
+                .orElseGet(() -> ProductRating.builder().productId(productId).build());
+    }
+    
+    @Transactional
+    public void recordReview(Long productId, int rating) {
+        productRatingRepository.applyDelta(productId, rating, 1);
+    }
+    
+    @Transactional
+    public void removeReview(Long productId, int rating) {
+        productRatingRepository.applyDelta(productId, -rating, -1);
+    }
+    
+    /**
+     * Recomputes every aggregate from the visible reviews. Runs once at startup so
+     * reviews written before the aggregate table existed are picked up.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        productRatingRepository.deleteAllRatings();
+        int products = productRatingRepository.insertFromVisibleReviews();
+        log.info("Rebuilt rating aggregates for {} products", products);
+        eventPublisher.publishEvent(ProductChangedEvent.all());
+    }
+}
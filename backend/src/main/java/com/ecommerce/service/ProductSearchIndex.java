@@ -0,0 +1,224 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over active products, ranked with BM25. Name, category and
+ * description terms are weighted differently so a hit in the name outranks one buried in
+ * the description. Every query term must match; the last one also matches as a prefix
+ * so results stay useful while the user is still typing. A short prefix can match thousands of
+ * terms, so it expands to at most 64 of them, the ones found in the most products.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    
+    private final ProductRepository productRepository;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Held from reading rows to applying them, so an older read never overwrites a newer one
+    private final Object updateLock = new Object();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, IndexedDoc> docs = new HashMap<>();
+    private double totalLength;
+    private volatile boolean built;
+    
+    public List<Long> search(String query) {
+        List<String> terms = SearchText.tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!built) {
+            ensureBuilt();
+        }
+        
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) {
+                return Collections.emptyList();
+            }
+            double avgLength = totalLength / docs.size();
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = i == terms.size() - 1;
+                Map<Long, Double> termScores = scoreTerm(terms.get(i), prefix, avgLength);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                    .thenComparing(entry -> -docs.get(entry.getKey()).soldQuantity)
+                    .thenComparing(Map.Entry::getKey));
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, Double> entry : ranked) {
+                ids.add(entry.getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private Map<Long, Double> scoreTerm(String term, boolean prefix, double avgLength) {
+        Map<Long, Double> scores = new HashMap<>();
+        Collection<Map<Long, Float>> matches;
+        if (prefix) {
+            Collection<Map<Long, Float>> expansions = postings.subMap(term, true, term + Character.MAX_VALUE, false).values();
+            if (expansions.size() <= MAX_PREFIX_EXPANSIONS) {
+                matches = expansions;
+            } else {
+                PriorityQueue<Map<Long, Float>> widest = new PriorityQueue<>(Comparator.comparingInt(Map::size));
+                for (Map<Long, Float> termPostings : expansions) {
+                    widest.add(termPostings);
+                    if (widest.size() > MAX_PREFIX_EXPANSIONS) {
+                        widest.poll();
+                    }
+                }
+                log.debug("Prefix '{}' matches {} terms, kept the {} most common", term, expansions.size(), MAX_PREFIX_EXPANSIONS);
+                matches = widest;
+            }
+        } else {
+            Map<Long, Float> termPostings = postings.get(term);
+            matches = termPostings != null ? List.of(termPostings) : List.of();
+        }
+        
+        int docCount = docs.size();
+        for (Map<Long, Float> termPostings : matches) {
+            int df = termPostings.size();
+            double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                double tf = posting.getValue();
+                double length = docs.get(posting.getKey()).length;
+                double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    void applyProductChange(ProductChangedEvent event) {
+        synchronized (updateLock) {
+            if (event.isFullRefresh() || !built) {
+                rebuild();
+                return;
+            }
+            
+            List<Product> products = productRepository.findAllWithCategoryByIdIn(event.getProductIds());
+            Set<Long> missing = new HashSet<>(event.getProductIds());
+            lock.writeLock().lock();
+            try {
+                for (Product product : products) {
+                    missing.remove(product.getId());
+                    remove(product.getId());
+                    if (Boolean.TRUE.equals(product.getIsActive())) {
+                        add(product);
+                    }
+                }
+                missing.forEach(this::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    private void ensureBuilt() {
+        synchronized (updateLock) {
+            if (!built) {
+                rebuild();
+            }
+        }
+    }
+    
+    private void rebuild() {
+        synchronized (updateLock) {
+            List<Product> products = productRepository.findAllActiveWithCategory();
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                docs.clear();
+                totalLength = 0;
+                products.forEach(this::add);
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Search index built with {} products and {} terms", products.size(), postings.size());
+        }
+    }
+    
+    private void add(Product product) {
+        Map<String, Float> weights = new HashMap<>();
+        accumulate(weights, product.getName(), NAME_WEIGHT);
+        accumulate(weights, product.getCategory() != null ? product.getCategory().getName() : null, CATEGORY_WEIGHT);
+        accumulate(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        
+        float length = 0;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(product.getId(), entry.getValue());
+            length += entry.getValue();
+        }
+        int sold = product.getSoldQuantity() != null ? product.getSoldQuantity() : 0;
+        docs.put(product.getId(), new IndexedDoc(weights.keySet().toArray(new String[0]), length, sold));
+        totalLength += length;
+    }
+    
+    private void remove(Long productId) {
+        IndexedDoc doc = docs.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= doc.length;
+    }
+    
+    private static void accumulate(Map<String, Float> weights, String text, float weight) {
+        for (String token : SearchText.tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+    
+    private record IndexedDoc(String[] terms, float length, int soldQuantity) {
+    }
+}
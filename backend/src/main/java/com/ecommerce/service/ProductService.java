@@ -1,92 +1,172 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CursorPageResponse;
+import com.ecommerce.dto.FacetedProductsDTO;
 import com.ecommerce.dto.PageResponse;
+import com.ecommerce.dto.ProductCardDTO;
 import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.dto.SuggestionDTO;
 import com.ecommerce.entity.Category;
 import com.ecommerce.entity.Product;
+import com.ecommerce.entity.ProductRating;
+import com.ecommerce.event.ProductChangedEvent;
 import com.ecommerce.repository.CategoryRepository;
 import com.ecommerce.repository.ProductRepository;
-import com.ecommerce.repository.ReviewRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     
+    private static final Set<String> SCROLL_SORT_KEYS = Set.of("id", "price", "createdAt", "soldQuantity", "name");
+    
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
-    private final ReviewRepository reviewRepository;
+    private final ProductRatingService productRatingService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final SalesLeaderboard salesLeaderboard;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public PageResponse<ProductDTO> getAllProducts(int page, int size, String sortBy, String sortDir) {
+    public PageResponse<ProductCardDTO> getAllProducts(int page, int size, String sortBy, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase("desc") 
                 ? Sort.by(sortBy).descending() 
                 : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Product> products = productRepository.findByIsActiveTrue(pageable);
-        List<ProductDTO> content = products.getContent().stream()
-                .map(this::enrichProductDTO)
-                .collect(Collectors.toList());
+        Page<ProductCardDTO> products = productRepository.findActiveCards(pageable);
         
-        return PageResponse.from(products, content);
+        return PageResponse.from(products, products.getContent());
     }
     
-    public PageResponse<ProductDTO> getProductsByCategory(Long categoryId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productRepository.findByCategoryIdAndIsActiveTrue(categoryId, pageable);
-        List<ProductDTO> content = products.getContent().stream()
-                .map(this::enrichProductDTO)
-                .collect(Collectors.toList());
+    public CursorPageResponse<ProductCardDTO> scrollProducts(String cursor, int size, String sortBy, String sortDir) {
+        if (!SCROLL_SORT_KEYS.contains(sortBy)) {
+            throw new RuntimeException("Unsupported sort field: " + sortBy);
+        }
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // id breaks ties so the (sortKey, id) seek is unambiguous
+        Sort sort = sortBy.equals("id")
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
         
-        return PageResponse.from(products, content);
+        Window<Product> window = productRepository.findByIsActiveTrue(
+                KeysetCursor.decode(cursor, sort), sort, Limit.of(size));
+        List<ProductCardDTO> content = cardsInOrder(window.getContent().stream()
+                .map(Product::getId)
+                .collect(Collectors.toList()));
+        return CursorPageResponse.from(window, content, KeysetCursor.nextCursor(window));
+    }
+    
+    public PageResponse<ProductCardDTO> getProductsByCategory(Long categoryId, int page, int size, String sortBy, String sortDir) {
+        Sort sort = sortDir.equalsIgnoreCase("desc") 
+                ? Sort.by(sortBy).descending() 
+                : Sort.by(sortBy).ascending();
+        Pageable pageable = PageRequest.of(page, size, sort);
+        // Includes products from every subcategory of categoryId
+        Page<ProductCardDTO> products = productRepository.findActiveCardsInCategoryTree(categoryId, pageable);
+        
+        return PageResponse.from(products, products.getContent());
     }
     
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         return enrichProductDTO(product);
     }
     
-    public List<ProductDTO> getFeaturedProducts() {
-        return productRepository.findByIsFeaturedTrueAndIsActiveTrue().stream()
-                .map(this::enrichProductDTO)
-                .collect(Collectors.toList());
+    public List<ProductCardDTO> getFeaturedProducts() {
+        return catalogSnapshotService.getSnapshot().getFeatured();
     }
     
-    public List<ProductDTO> getTopSellingProducts(int limit) {
-        return productRepository.findTopSelling(PageRequest.of(0, limit)).stream()
-                .map(this::enrichProductDTO)
+    public List<ProductCardDTO> getTopSellingProducts(int limit) {
+        Map<Long, ProductCardDTO> active = catalogSnapshotService.getSnapshot().getProducts();
+        return salesLeaderboard.top(limit, entry -> active.containsKey(entry.productId())).stream()
+                .map(entry -> active.get(entry.productId()))
                 .collect(Collectors.toList());
     }
     
-    public List<ProductDTO> getNewArrivals(int limit) {
-        return productRepository.findNewArrivals(PageRequest.of(0, limit)).stream()
-                .map(this::enrichProductDTO)
+    /**
+     * Products most often bought together with this one, topped up with the category's best
+     * sellers when there is not enough order history yet.
+     */
+    public List<ProductCardDTO> getRelatedProducts(Long productId, int limit) {
+        Map<Long, ProductCardDTO> active = catalogSnapshotService.getSnapshot().getProducts();
+        ProductCardDTO product = active.get(productId);
+        if (product == null) {
+            return List.of();
+        }
+        
+        List<ProductCardDTO> related = coPurchaseIndex.related(productId, CoPurchaseIndex.MAX_NEIGHBORS).stream()
+                .map(active::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
                 .collect(Collectors.toList());
+        if (related.size() < limit) {
+            Set<Long> seen = related.stream().map(ProductCardDTO::getId).collect(Collectors.toSet());
+            salesLeaderboard.top(limit - related.size(), entry -> {
+                        ProductCardDTO candidate = active.get(entry.productId());
+                        return candidate != null && !candidate.getId().equals(productId)
+                                && !seen.contains(candidate.getId())
+                                && candidate.getCategoryId().equals(product.getCategoryId());
+                    })
+                    .forEach(entry -> related.add(active.get(entry.productId())));
+        }
+        return related;
     }
     
-    public List<ProductDTO> getOnSaleProducts(int limit) {
-        return productRepository.findOnSale(PageRequest.of(0, limit)).stream()
-                .map(this::enrichProductDTO)
-                .collect(Collectors.toList());
+    public int rebuildRelatedProducts() {
+        return coPurchaseIndex.rebuild();
     }
     
-    public PageResponse<ProductDTO> searchProducts(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productRepository.searchProducts(keyword, pageable);
-        List<ProductDTO> content = products.getContent().stream()
-                .map(this::enrichProductDTO)
-                .collect(Collectors.toList());
+    public List<ProductCardDTO> getNewArrivals(int limit) {
+        return CatalogSnapshot.limit(catalogSnapshotService.getSnapshot().getNewArrivals(), limit);
+    }
+    
+    public List<ProductCardDTO> getOnSaleProducts(int limit) {
+        return CatalogSnapshot.limit(catalogSnapshotService.getSnapshot().getOnSale(), limit);
+    }
+    
+    public PageResponse<ProductCardDTO> searchProducts(String keyword, int page, int size) {
+        List<Long> rankedIds = productSearchIndex.search(keyword);
+        List<ProductCardDTO> ranked = cardsInOrder(pageOf(rankedIds, page, size));
         
-        return PageResponse.from(products, content);
+        return PageResponse.from(new PageImpl<>(ranked, PageRequest.of(page, size), rankedIds.size()), ranked);
+    }
+    
+    public SuggestionDTO suggest(String query, int limit, int categoryLimit) {
+        return productSuggestIndex.suggest(query, limit, categoryLimit);
+    }
+    
+    public FacetedProductsDTO filterProducts(ProductFilter filter, int page, int size, String sortBy, String sortDir) {
+        ProductFacetIndex.Result result = productFacetIndex.search(filter, sortBy, sortDir.equalsIgnoreCase("desc"));
+        List<ProductCardDTO> products = cardsInOrder(pageOf(result.productIds(), page, size));
+        
+        return FacetedProductsDTO.builder()
+                .products(PageResponse.from(
+                        new PageImpl<>(products, PageRequest.of(page, size), result.productIds().size()),
+                        products))
+                .facets(result.facets())
+                .build();
     }
     
     @Transactional
@@ -107,7 +187,9 @@ public class ProductService {
                 .isFeatured(dto.getIsFeatured() != null ? dto.getIsFeatured() : false)
                 .build();
         
-        return ProductDTO.fromEntity(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(saved.getId()));
+        return ProductDTO.fromEntity(saved);
     }
     
     @Transactional
@@ -129,7 +211,9 @@ public class ProductService {
         if (dto.getImageUrl() != null) product.setImageUrl(dto.getImageUrl());
         if (dto.getIsFeatured() != null) product.setIsFeatured(dto.getIsFeatured());
         
-        return ProductDTO.fromEntity(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(id));
+        return ProductDTO.fromEntity(saved);
     }
     
     @Transactional
@@ -140,6 +224,7 @@ public class ProductService {
         System.out.println("🗑️ [ProductService] Soft deleting product: " + id + " - " + product.getName());
         product.setIsActive(false);
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(id));
         System.out.println("✅ [ProductService] Product marked as inactive: " + id);
     }
     
@@ -150,17 +235,15 @@ public class ProductService {
         
         System.out.println("🗑️ [ProductService] Hard deleting product: " + id + " - " + product.getName());
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(id));
         System.out.println("✅ [ProductService] Product permanently deleted: " + id);
     }
     
-    public PageResponse<ProductDTO> getDeletedProducts(int page, int size) {
+    public PageResponse<ProductCardDTO> getDeletedProducts(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedAt").descending());
-        Page<Product> products = productRepository.findByIsActiveFalse(pageable);
-        List<ProductDTO> content = products.getContent().stream()
-                .map(this::enrichProductDTO)
-                .collect(Collectors.toList());
+        Page<ProductCardDTO> products = productRepository.findInactiveCards(pageable);
         
-        return PageResponse.from(products, content);
+        return PageResponse.from(products, products.getContent());
     }
     
     @Transactional
@@ -171,16 +254,36 @@ public class ProductService {
         System.out.println("♻️ [ProductService] Restoring product: " + id + " - " + product.getName());
         product.setIsActive(true);
         Product restored = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(id));
         System.out.println("✅ [ProductService] Product restored: " + id);
         
         return enrichProductDTO(restored);
     }
     
+    private static List<Long> pageOf(List<Long> ids, int page, int size) {
+        int from = (int) Math.min((long) page * size, ids.size());
+        return ids.subList(from, Math.min(from + size, ids.size()));
+    }
+    
+    private List<ProductCardDTO> cardsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductCardDTO> byId = productRepository.findCardsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductCardDTO::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+    
     private ProductDTO enrichProductDTO(Product product) {
-        ProductDTO dto = ProductDTO.fromEntity(product);
-        Double rating = reviewRepository.getAverageRatingByProductId(product.getId());
-        dto.setRating(rating != null ? rating : 0.0);
-        dto.setReviewCount(reviewRepository.countByProductId(product.getId()));
+        return withRating(ProductDTO.fromEntity(product), productRatingService.getRating(product.getId()));
+    }
+    
+    private static ProductDTO withRating(ProductDTO dto, ProductRating rating) {
+        dto.setRating(rating != null ? rating.getAverageRating() : 0.0);
+        dto.setReviewCount(rating != null ? rating.getReviewCount() : 0L);
         return dto;
     }
 }
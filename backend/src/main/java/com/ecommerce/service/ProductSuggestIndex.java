@@ -0,0 +1,160 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.SuggestionDTO;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead suggestions for the search box. Products are ranked by sold quantity and
+ * categories by the total sold quantity of their active products.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndex {
+    static final int MAX_RESULTS = 10;
+    private static final int MAX_DEPTH = 24;
+    
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Writers hold this across their read and their write; readers only take the read lock
+    private final Object updateLock = new Object();
+    private final SuggestTrie products = new SuggestTrie(MAX_RESULTS, MAX_DEPTH);
+    private final SuggestTrie categories = new SuggestTrie(MAX_RESULTS, MAX_DEPTH);
+    private final Map<Long, Long> productCategory = new HashMap<>();
+    private final Map<Long, Long> categorySold = new HashMap<>();
+    private volatile boolean built;
+    
+    public SuggestionDTO suggest(String query, int productLimit, int categoryLimit) {
+        if (!built) {
+            ensureBuilt();
+        }
+        
+        lock.readLock().lock();
+        try {
+            return SuggestionDTO.builder()
+                    .categories(toItems(categories.lookup(query, Math.min(categoryLimit, MAX_RESULTS))))
+                    .products(toItems(products.lookup(query, Math.min(productLimit, MAX_RESULTS))))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    void applyProductChange(ProductChangedEvent event) {
+        synchronized (updateLock) {
+            if (event.isFullRefresh()) {
+                rebuild();
+                return;
+            }
+            
+            List<Product> changed = productRepository.findAllWithCategoryByIdIn(event.getProductIds());
+            Set<Long> missing = new HashSet<>(event.getProductIds());
+            lock.writeLock().lock();
+            try {
+                Set<Long> touchedCategories = new HashSet<>();
+                for (Product product : changed) {
+                    missing.remove(product.getId());
+                    removeProduct(product.getId(), touchedCategories);
+                    if (Boolean.TRUE.equals(product.getIsActive())) {
+                        addProduct(product, touchedCategories);
+                    }
+                }
+                missing.forEach(id -> removeProduct(id, touchedCategories));
+                touchedCategories.forEach(this::rerankCategory);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    private void ensureBuilt() {
+        synchronized (updateLock) {
+            if (!built) {
+                rebuild();
+            }
+        }
+    }
+    
+    private void rebuild() {
+        synchronized (updateLock) {
+            List<Product> activeProducts = productRepository.findAllActiveWithCategory();
+            List<Category> activeCategories = categoryRepository.findByIsActiveTrue();
+            
+            lock.writeLock().lock();
+            try {
+                products.clear();
+                categories.clear();
+                productCategory.clear();
+                categorySold.clear();
+                Set<Long> touchedCategories = new HashSet<>();
+                activeProducts.forEach(product -> addProduct(product, touchedCategories));
+                for (Category category : activeCategories) {
+                    categories.put(new SuggestTrie.Entry(category.getId(), category.getName(), category.getImageUrl(),
+                            categorySold.getOrDefault(category.getId(), 0L)));
+                }
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Suggest index built with {} products and {} categories", activeProducts.size(), activeCategories.size());
+        }
+    }
+    
+    private void addProduct(Product product, Set<Long> touchedCategories) {
+        long sold = product.getSoldQuantity() != null ? product.getSoldQuantity() : 0;
+        Long categoryId = product.getCategory().getId();
+        products.put(new SuggestTrie.Entry(product.getId(), product.getName(), product.getImageUrl(), sold));
+        productCategory.put(product.getId(), categoryId);
+        categorySold.merge(categoryId, sold, Long::sum);
+        touchedCategories.add(categoryId);
+    }
+    
+    private void removeProduct(Long productId, Set<Long> touchedCategories) {
+        SuggestTrie.Entry existing = products.get(productId);
+        Long categoryId = productCategory.remove(productId);
+        if (existing != null && categoryId != null) {
+            categorySold.merge(categoryId, -existing.score(), Long::sum);
+            touchedCategories.add(categoryId);
+        }
+        products.remove(productId);
+    }
+    
+    private void rerankCategory(Long categoryId) {
+        SuggestTrie.Entry entry = categories.get(categoryId);
+        if (entry != null) {
+            categories.put(new SuggestTrie.Entry(entry.id(), entry.name(), entry.imageUrl(),
+                    categorySold.getOrDefault(categoryId, 0L)));
+        }
+    }
+    
+    private static List<SuggestionDTO.Item> toItems(List<SuggestTrie.Entry> entries) {
+        return entries.stream()
+                .map(entry -> SuggestionDTO.Item.builder()
+                        .id(entry.id())
+                        .name(entry.name())
+                        .imageUrl(entry.imageUrl())
+                        .build())
+                .toList();
+    }
+}
@@ -2,16 +2,23 @@ package com.ecommerce.service;
 
 import com.ecommerce.dto.*;
 import com.ecommerce.entity.*;
+import com.ecommerce.event.ProductChangedEvent;
 import com.ecommerce.repository.*;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,13 +26,25 @@ public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ProductRatingService productRatingService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Page<ReviewDTO> getProductReviews(Long productId, int page, int size) {
         return reviewRepository.findByProductIdAndIsVisibleTrue(productId, PageRequest.of(page, size))
                 .map(this::toDTO);
     }
     
+    public CursorPageResponse<ReviewDTO> scrollProductReviews(Long productId, String cursor, int size) {
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        Window<Review> window = reviewRepository.findByProductIdAndIsVisibleTrue(
+                productId, KeysetCursor.decode(cursor, sort), sort, Limit.of(size));
+        return CursorPageResponse.from(window,
+                window.getContent().stream().map(this::toDTO).collect(Collectors.toList()),
+                KeysetCursor.nextCursor(window));
+    }
+    
+    @Transactional
     public ReviewDTO createReview(Long userId, CreateReviewRequest request) {
         if (reviewRepository.existsByUserIdAndProductId(userId, request.getProductId())) {
             throw new RuntimeException("You already reviewed this product");
@@ -53,7 +72,29 @@ public class ReviewService {
                 .isVerifiedPurchase(true)
                 .build();
         
-        return toDTO(reviewRepository.save(review));
+        Review saved = reviewRepository.save(review);
+        productRatingService.recordReview(product.getId(), saved.getRating());
+        eventPublisher.publishEvent(ProductChangedEvent.of(product.getId()));
+        return toDTO(saved);
+    }
+    
+    @Transactional
+    public ReviewDTO updateVisibility(Long reviewId, boolean visible) {
+        Review review = reviewRepository.findById(reviewId)
+                .orElseThrow(() -> new RuntimeException("Review not found"));
+        
+        if (review.getIsVisible() != visible) {
+            review.setIsVisible(visible);
+            reviewRepository.save(review);
+            if (visible) {
+                productRatingService.recordReview(review.getProduct().getId(), review.getRating());
+            } else {
+                productRatingService.removeReview(review.getProduct().getId(), review.getRating());
+            }
+            eventPublisher.publishEvent(ProductChangedEvent.of(review.getProduct().getId()));
+        }
+        
+        return toDTO(review);
     }
     
     private ReviewDTO toDTO(Review review) {
@@ -0,0 +1,127 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * Products ordered by sold quantity, kept in a skip list so top-N is a walk over the first
+ * N entries. Orders and cancellations re-rank only the products they touched.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SalesLeaderboard {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::soldQuantity).reversed()
+            .thenComparingLong(Entry::productId);
+
+    private final ProductRepository productRepository;
+
+    private volatile Board board = new Board();
+    private volatile boolean built;
+
+    public List<Entry> top(int limit) {
+        return top(limit, entry -> true);
+    }
+
+    public List<Entry> top(int limit, Predicate<Entry> filter) {
+        if (!built) {
+            ensureBuilt();
+        }
+
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        for (Iterator<Entry> it = board.ranking.iterator(); it.hasNext() && result.size() < limit; ) {
+            Entry entry = it.next();
+            if (filter.test(entry)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Holds the monitor through the read too, so a first build on a reader cannot interleave with it
+    synchronized void applyProductChange(ProductChangedEvent event) {
+        if (event.isFullRefresh()) {
+            rebuild();
+            return;
+        }
+
+        List<Product> products = productRepository.findAllById(event.getProductIds());
+        Set<Long> missing = new HashSet<>(event.getProductIds());
+        for (Product product : products) {
+            missing.remove(product.getId());
+            board.put(Entry.of(product));
+        }
+        missing.forEach(board::remove);
+    }
+
+    private synchronized void ensureBuilt() {
+        if (!built) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        Board rebuilt = new Board();
+        List<Product> products = productRepository.findAll();
+        products.forEach(product -> rebuilt.put(Entry.of(product)));
+        board = rebuilt;
+        built = true;
+        log.info("Sales leaderboard built with {} products", products.size());
+    }
+
+    public record Entry(long productId, int soldQuantity, String name, String imageUrl, BigDecimal price,
+                        boolean active) {
+
+        static Entry of(Product product) {
+            return new Entry(product.getId(),
+                    product.getSoldQuantity() != null ? product.getSoldQuantity() : 0,
+                    product.getName(),
+                    product.getImageUrl(),
+                    product.getPrice(),
+                    Boolean.TRUE.equals(product.getIsActive()));
+        }
+    }
+
+    /**
+     * Writers are serialized by the enclosing component; readers walk the skip list without locking
+     * and may briefly miss a product while it is being re-ranked.
+     */
+    private static class Board {
+        private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+        private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+
+        void put(Entry entry) {
+            Entry previous = byId.put(entry.productId(), entry);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(entry);
+        }
+
+        void remove(Long productId) {
+            Entry previous = byId.remove(productId);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+        }
+    }
+}
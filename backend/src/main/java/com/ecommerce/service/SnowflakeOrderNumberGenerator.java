@@ -0,0 +1,105 @@
+package com.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01, 10 bits of node id and
+ * a 12-bit sequence, printed in decimal after an "ORD" prefix. Numbers from one node are strictly
+ * increasing and nodes with different ids can never collide.
+ * <p>
+ * The last issued time and sequence share one {@link AtomicLong}, so issuing is a single CAS.
+ * When the sequence of a millisecond runs out, or the clock steps backwards, the increment simply
+ * carries into the time field and the node runs slightly ahead of the clock instead of waiting.
+ * <p>
+ * The node id comes from {@code app.order-number.node-id} and must be set, distinct for every
+ * instance; startup fails without it, since no id picked by the instance alone is guaranteed not
+ * to clash with another's. The {@code dev} profile sets 0 for a single local instance. At startup the generator resumes after the
+ * highest number this node id already stored, so a restart onto a clock that is behind never
+ * hands out a number twice.
+ */
+@Component
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+    
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final String PREFIX = "ORD";
+    
+    // Numbers from before this generator are skipped by the pattern, or decode to a time long past
+    private static final String LAST_ISSUED_SQL = "SELECT MAX(CAST(SUBSTRING(order_number, 4) AS UNSIGNED)) FROM orders "
+            + "WHERE order_number REGEXP '^ORD[0-9]+$' AND (CAST(SUBSTRING(order_number, 4) AS UNSIGNED) >> 12) & 1023 = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final long nodeId;
+    private final long nodeBits;
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+    
+    public SnowflakeOrderNumberGenerator(@Value("${app.order-number.node-id:#{null}}") Long nodeId,
+                                         JdbcTemplate jdbcTemplate) {
+        if (nodeId == null) {
+            throw new IllegalStateException("app.order-number.node-id is not set: give every instance a distinct id from 0 to "
+                    + MAX_NODE_ID + ", or run a single local instance with the dev profile");
+        }
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.order-number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId;
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+    
+    @PostConstruct
+    public void resumeFromStoredOrders() {
+        Long lastId;
+        try {
+            lastId = jdbcTemplate.queryForObject(LAST_ISSUED_SQL, Long.class, nodeId);
+        } catch (BadSqlGrammarException e) {
+            // First start on an empty schema: there are no orders to resume after
+            return;
+        }
+        if (lastId != null) {
+            resumeAfter(lastId);
+        }
+    }
+    
+    /**
+     * Makes every later number greater than {@code lastId}. If that number is ahead of the clock,
+     * the node keeps running ahead until the clock catches up.
+     */
+    void resumeAfter(long lastId) {
+        long lastTime = lastId >>> (NODE_BITS + SEQUENCE_BITS);
+        long ahead = lastTime - (System.currentTimeMillis() - EPOCH);
+        if (ahead > 0) {
+            log.warn("Clock is {} ms behind the last order number issued by node {}", ahead, nodeId);
+        }
+        long stored = lastTime << SEQUENCE_BITS | lastId & SEQUENCE_MASK;
+        lastTimeAndSequence.accumulateAndGet(stored, Math::max);
+    }
+    
+    @Override
+    public String next() {
+        return PREFIX + nextId();
+    }
+    
+    long nextId() {
+        while (true) {
+            long previous = lastTimeAndSequence.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long next = now > previous >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : previous + 1;
+            if (lastTimeAndSequence.compareAndSet(previous, next)) {
+                long time = next >>> SEQUENCE_BITS;
+                return time << (NODE_BITS + SEQUENCE_BITS) | nodeBits | next & SEQUENCE_MASK;
+            }
+        }
+    }
+}
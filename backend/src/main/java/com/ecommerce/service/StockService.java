@@ -0,0 +1,60 @@
+package com.ecommerce.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set-based stock movements. Each line is a conditional UPDATE evaluated by MySQL against the
+ * current row, so concurrent checkouts on the same product can neither lose an update nor take
+ * stock below zero. Lines are applied in product id order so two orders always lock shared rows
+ * in the same order.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockService {
+    
+    private static final String DECREMENT_SQL = "UPDATE products SET stock_quantity = stock_quantity - ?, "
+            + "sold_quantity = sold_quantity + ?, updated_at = ? WHERE id = ? AND stock_quantity >= ?";
+    
+    private static final String RESTOCK_SQL = "UPDATE products SET stock_quantity = stock_quantity + ?, "
+            + "sold_quantity = sold_quantity - ?, updated_at = ? WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Takes the quantities (product id to quantity) out of stock in one batch and returns the ids
+     * of the lines that could not be covered. Must run inside the caller's transaction, which has
+     * to roll back when the result is not empty.
+     */
+    public List<Long> decrement(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = lines.stream()
+                .map(line -> new Object[]{line.getValue(), line.getValue(), now, line.getKey(), line.getValue()})
+                .toList();
+        
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (counts[i] == 0) {
+                failed.add(lines.get(i).getKey());
+            }
+        }
+        return failed;
+    }
+    
+    public void restock(Map<Long, Integer> quantities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new TreeMap<>(quantities).entrySet().stream()
+                .map(line -> new Object[]{line.getValue(), line.getValue(), now, line.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate(RESTOCK_SQL, args);
+    }
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.service;
+
+import java.util.*;
+
+/**
+ * Prefix trie whose nodes cache the best {@code maxResults} entries of their subtree, so a
+ * lookup is a walk down the prefix plus a copy of that cached list. Every word start of an
+ * entry's name is inserted as a key, letting "pro" find "iPhone 15 Pro". Keys are cut at
+ * {@code maxDepth}; longer queries finish by filtering the entries stored at that depth.
+ * Not thread-safe: callers guard it with a lock.
+ */
+class SuggestTrie {
+    record Entry(long id, String name, String imageUrl, long score) {
+    }
+    
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::score).reversed()
+            .thenComparingLong(Entry::id);
+    
+    private final int maxResults;
+    private final int maxDepth;
+    private final Node root = new Node();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    
+    SuggestTrie(int maxResults, int maxDepth) {
+        this.maxResults = maxResults;
+        this.maxDepth = maxDepth;
+    }
+    
+    List<Entry> lookup(String query, int limit) {
+        String prefix = String.join(" ", SearchText.tokenize(query));
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        
+        Node node = root;
+        int depth = Math.min(prefix.length(), maxDepth);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        if (prefix.length() <= maxDepth) {
+            return node.top.subList(0, Math.min(limit, node.top.size()));
+        }
+        
+        return node.terminals.stream()
+                .filter(terminal -> terminal.key.startsWith(prefix))
+                .map(Terminal::entry)
+                .distinct()
+                .sorted(RANKING)
+                .limit(limit)
+                .toList();
+    }
+    
+    Entry get(long id) {
+        return entries.get(id);
+    }
+    
+    void put(Entry entry) {
+        remove(entry.id());
+        entries.put(entry.id(), entry);
+        for (String key : keysOf(entry.name())) {
+            Node node = root;
+            node.offer(entry, maxResults);
+            for (int i = 0; i < Math.min(key.length(), maxDepth); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                node.offer(entry, maxResults);
+            }
+            node.terminals.add(new Terminal(key, entry));
+        }
+    }
+    
+    void remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String key : keysOf(entry.name())) {
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            path.push(node);
+            for (int i = 0; i < Math.min(key.length(), maxDepth) && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+                if (node != null) {
+                    path.push(node);
+                }
+            }
+            if (node != null) {
+                node.terminals.removeIf(terminal -> terminal.entry.id() == id);
+            }
+            
+            // Recompute cached rankings bottom-up; children are always fixed before parents
+            Node child = null;
+            int depth = path.size() - 1;
+            for (Node current : path) {
+                if (child != null && child.isEmpty()) {
+                    current.children.remove(key.charAt(depth));
+                }
+                current.recompute(maxResults);
+                child = current;
+                depth--;
+            }
+        }
+    }
+    
+    void clear() {
+        entries.clear();
+        root.children.clear();
+        root.terminals.clear();
+        root.top = List.of();
+    }
+    
+    private static List<String> keysOf(String name) {
+        List<String> tokens = SearchText.tokenize(name);
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return keys;
+    }
+    
+    private record Terminal(String key, Entry entry) {
+    }
+    
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        final List<Terminal> terminals = new ArrayList<>(1);
+        List<Entry> top = List.of();
+        
+        void offer(Entry entry, int maxResults) {
+            if (top.contains(entry)) {
+                return;
+            }
+            if (top.size() >= maxResults && RANKING.compare(entry, top.get(top.size() - 1)) > 0) {
+                return;
+            }
+            List<Entry> merged = new ArrayList<>(top.size() + 1);
+            merged.addAll(top);
+            merged.add(entry);
+            merged.sort(RANKING);
+            top = List.copyOf(merged.subList(0, Math.min(maxResults, merged.size())));
+        }
+        
+        void recompute(int maxResults) {
+            Set<Entry> candidates = new HashSet<>();
+            terminals.forEach(terminal -> candidates.add(terminal.entry));
+            children.values().forEach(child -> candidates.addAll(child.top));
+            top = candidates.stream().sorted(RANKING).limit(maxResults).toList();
+        }
+        
+        boolean isEmpty() {
+            return children.isEmpty() && terminals.isEmpty();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.ecommerce.service;
 
-import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductCardDTO;
 import com.ecommerce.entity.Product;
 import com.ecommerce.entity.User;
 import com.ecommerce.entity.Wishlist;
@@ -11,7 +11,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,10 +20,8 @@ public class WishlistService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     
-    public List<ProductDTO> getWishlist(Long userId) {
-        return wishlistRepository.findByUserId(userId).stream()
-                .map(w -> ProductDTO.fromEntity(w.getProduct()))
-                .collect(Collectors.toList());
+    public List<ProductCardDTO> getWishlist(Long userId) {
+        return wishlistRepository.findProductCardsByUserId(userId);
     }
     
     @Transactional
@@ -0,0 +1,178 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.MySqlIntegrationTest;
+import com.ecommerce.entity.*;
+import com.ecommerce.service.CategoryClosureService;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import com.ecommerce.service.ReviewService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every list endpoint must issue the same number of statements whatever the page size; a count
+ * that grows with the page means an association is loaded row by row.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListQueryStatementCountTest extends MySqlIntegrationTest {
+
+    private static final int ROWS = 30;
+    private static final int SMALL_PAGE = 5;
+    private static final int LARGE_PAGE = 20;
+
+    @Autowired private OrderService orderService;
+    @Autowired private ReviewService reviewService;
+    @Autowired private ProductService productService;
+    @Autowired private CategoryClosureService categoryClosureService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private CouponRepository couponRepository;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private ReviewRepository reviewRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired @Qualifier("catalogChangeExecutor") private ThreadPoolTaskExecutor catalogChangeExecutor;
+
+    private Long buyerId;
+    private Long categoryId;
+    private Long reviewedProductId;
+
+    @BeforeAll
+    void seed() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Category category = categoryRepository.save(Category.builder().name("Statement count").build());
+            categoryClosureService.addCategory(category.getId(), null);
+            categoryId = category.getId();
+
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                products.add(productRepository.save(Product.builder()
+                        .category(category)
+                        .name("Statement count product " + i)
+                        .price(BigDecimal.valueOf(100 + i))
+                        .stockQuantity(100)
+                        .build()));
+            }
+            reviewedProductId = products.get(0).getId();
+
+            Coupon coupon = couponRepository.save(Coupon.builder()
+                    .code("STMT-COUNT")
+                    .discountType(Coupon.DiscountType.PERCENTAGE)
+                    .discountValue(BigDecimal.TEN)
+                    .build());
+
+            User buyer = userRepository.save(user("stmt-buyer@shop.com"));
+            buyerId = buyer.getId();
+            for (int i = 0; i < ROWS; i++) {
+                Order order = Order.builder()
+                        .user(buyer)
+                        .orderNumber("STMT-" + i)
+                        .subtotal(BigDecimal.valueOf(200))
+                        .totalAmount(BigDecimal.valueOf(200))
+                        .paymentMethod(Order.PaymentMethod.COD)
+                        .coupon(i % 2 == 0 ? coupon : null)
+                        .build();
+                for (int j = 0; j < 2; j++) {
+                    Product product = products.get((i + j) % ROWS);
+                    order.getItems().add(OrderItem.builder()
+                            .order(order)
+                            .product(product)
+                            .productName(product.getName())
+                            .price(product.getPrice())
+                            .quantity(1)
+                            .subtotal(product.getPrice())
+                            .build());
+                }
+                orderRepository.save(order);
+
+                reviewRepository.save(Review.builder()
+                        .product(products.get(0))
+                        .user(userRepository.save(user("stmt-reviewer-" + i + "@shop.com")))
+                        .rating(1 + i % 5)
+                        .comment("Review " + i)
+                        .build());
+            }
+        });
+    }
+
+    // Startup queues a catalog refresh whose reads would land in the first measurement
+    @BeforeEach
+    void awaitCatalogChanges() throws Exception {
+        catalogChangeExecutor.submit(() -> { }).get(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void userOrdersPage() {
+        // Orders with their coupon, the count, one batch of items
+        assertConstant(3, size -> orderService.getUserOrders(buyerId, 0, size));
+    }
+
+    @Test
+    void userOrdersScroll() {
+        assertConstant(2, size -> orderService.scrollUserOrders(buyerId, null, size));
+    }
+
+    @Test
+    void productReviewsPage() {
+        assertConstant(2, size -> reviewService.getProductReviews(reviewedProductId, 0, size));
+    }
+
+    @Test
+    void productReviewsScroll() {
+        assertConstant(1, size -> reviewService.scrollProductReviews(reviewedProductId, null, size));
+    }
+
+    @Test
+    void productsPage() {
+        assertConstant(2, size -> productService.getAllProducts(0, size, "id", "desc"));
+    }
+
+    @Test
+    void productsByCategoryPage() {
+        assertConstant(2, size -> productService.getProductsByCategory(categoryId, 0, size, "id", "desc"));
+    }
+
+    private void assertConstant(long expectedMax, IntConsumer listCall) {
+        long small = statements(() -> listCall.accept(SMALL_PAGE));
+        long large = statements(() -> listCall.accept(LARGE_PAGE));
+        assertEquals(small, large, "statement count changed with the page size");
+        assertTrue(large <= expectedMax, "expected at most " + expectedMax + " statements but got " + large);
+    }
+
+    // Read-only transaction around the call, as open-in-view gives the controllers
+    private long statements(Runnable call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        statistics.clear();
+        readOnly.executeWithoutResult(status -> call.run());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static User user(String email) {
+        return User.builder()
+                .email(email)
+                .password("not-a-real-hash")
+                .fullName(email.substring(0, email.indexOf('@')))
+                .build();
+    }
+}
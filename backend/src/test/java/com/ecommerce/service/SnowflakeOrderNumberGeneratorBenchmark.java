@@ -0,0 +1,88 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Timed throughput run for the order number generator at a few thread counts. Too slow and too
+ * machine-dependent for the normal build, so it only runs with {@code -Dbenchmark=true}:
+ * <pre>mvn test -Dtest=SnowflakeOrderNumberGeneratorBenchmark -Dbenchmark=true</pre>
+ * Note that 4096 numbers per millisecond per node is the design ceiling; beyond it the node runs
+ * ahead of the clock rather than failing, which the run reports.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SnowflakeOrderNumberGeneratorBenchmark {
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int IDS_PER_ROUND = 2_000_000;
+
+    @Test
+    void throughput() throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                run(threads);
+            }
+            long best = Long.MAX_VALUE;
+            long total = 0;
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                long nanos = run(threads);
+                best = Math.min(best, nanos);
+                total += nanos;
+            }
+            System.out.printf("%2d threads: %,.0f ids/s best, %,.0f ids/s mean%n", threads,
+                    IDS_PER_ROUND * 1e9 / best, IDS_PER_ROUND * 1e9 * MEASURED_ROUNDS / total);
+        }
+    }
+
+    // Returns the elapsed nanoseconds for IDS_PER_ROUND ids split across the threads
+    private static long run(int threads) throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1L, null);
+        int perThread = IDS_PER_ROUND / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long last = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        last = generator.nextId();
+                    }
+                    return last;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            long last = 0;
+            for (Future<Long> future : futures) {
+                last = Math.max(last, future.get(1, TimeUnit.MINUTES));
+            }
+            long elapsed = System.nanoTime() - started;
+
+            long ahead = (last >>> 22) - (System.currentTimeMillis() - EPOCH);
+            if (ahead > 0) {
+                System.out.printf("%2d threads: ran %d ms ahead of the clock%n", threads, ahead);
+            }
+            assertTrue(last > 0);
+            return elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
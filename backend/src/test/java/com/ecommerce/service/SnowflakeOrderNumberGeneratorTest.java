@@ -0,0 +1,111 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void idsAreUniqueAndIncreasingPerThreadUnderContention() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7L, null);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get(1, TimeUnit.MINUTES);
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "ids went backwards within one thread");
+                }
+                for (long id : ids) {
+                    assertEquals(7L, id >>> 12 & 1023, "id carries the wrong node");
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertNotEquals(all[i - 1], all[i], "duplicate id");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nodesNeverCollide() {
+        SnowflakeOrderNumberGenerator first = new SnowflakeOrderNumberGenerator(1L, null);
+        SnowflakeOrderNumberGenerator second = new SnowflakeOrderNumberGenerator(2L, null);
+        for (int i = 0; i < 100_000; i++) {
+            assertNotEquals(first.nextId(), second.nextId());
+        }
+    }
+
+    @Test
+    void resumesAfterAStoredIdThatIsAheadOfTheClock() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(3L, null);
+        long current = generator.nextId();
+        // An hour ahead, as if the clock had stepped back since that order was placed
+        long stored = current + (3_600_000L << 22);
+
+        generator.resumeAfter(stored);
+
+        long next = generator.nextId();
+        assertTrue(next > stored);
+        assertEquals(3L, next >>> 12 & 1023);
+    }
+
+    @Test
+    void resumingFromAnOlderIdChangesNothing() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(3L, null);
+        long current = generator.nextId();
+
+        generator.resumeAfter(current - (3_600_000L << 22));
+
+        assertTrue(generator.nextId() > current);
+    }
+
+    @Test
+    void numbersKeepThePrefix() {
+        String number = new SnowflakeOrderNumberGenerator(0L, null).next();
+        assertTrue(number.matches("ORD[0-9]+"), number);
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(1024L, null));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(-1L, null));
+    }
+
+    @Test
+    void refusesToStartWithoutANodeId() {
+        assertThrows(IllegalStateException.class, () -> new SnowflakeOrderNumberGenerator(null, null));
+    }
+}
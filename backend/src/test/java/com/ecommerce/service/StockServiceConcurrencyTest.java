@@ -0,0 +1,141 @@
+package com.ecommerce.service;
+
+import com.ecommerce.MySqlIntegrationTest;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many checkouts racing for the same product must sell exactly the stock there is: no lost
+ * updates, no negative stock, and no deadlocks when orders list shared products in different
+ * orders.
+ */
+class StockServiceConcurrencyTest extends MySqlIntegrationTest {
+
+    private static final int INITIAL_STOCK = 100;
+    private static final int THREADS = 200;
+    private static final int ORDERS = 500;
+
+    @Autowired private StockService stockService;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Test
+    void sellsExactlyTheStockOfOneProduct() throws Exception {
+        long productId = createProduct("Hot item");
+
+        Outcome outcome = race(i -> Map.of(productId, 1));
+
+        assertEquals(0, outcome.errors.get(), "checkouts failed with an exception");
+        assertEquals(INITIAL_STOCK, outcome.placed.get());
+        assertEquals(ORDERS - INITIAL_STOCK, outcome.rejected.get());
+        assertEquals(0, stock(productId));
+        assertEquals(INITIAL_STOCK, sold(productId));
+    }
+
+    @Test
+    void sharedProductsInAnyOrderNeitherDeadlockNorOversell() throws Exception {
+        long first = createProduct("Bundle part A");
+        long second = createProduct("Bundle part B");
+
+        // Half the orders list the products the other way round; the updates must still lock in id order
+        Outcome outcome = race(i -> {
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            lines.put(i % 2 == 0 ? first : second, 1);
+            lines.put(i % 2 == 0 ? second : first, 1);
+            return lines;
+        });
+
+        assertEquals(0, outcome.errors.get(), "checkouts failed with an exception");
+        assertEquals(INITIAL_STOCK, outcome.placed.get());
+        assertEquals(0, stock(first));
+        assertEquals(0, stock(second));
+        assertEquals(INITIAL_STOCK, sold(first));
+        assertEquals(INITIAL_STOCK, sold(second));
+    }
+
+    /**
+     * Runs every order as checkout does: the decrement inside a transaction that rolls back when
+     * any line could not be covered. All threads are released at once to maximise contention.
+     */
+    private Outcome race(OrderLines orderLines) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Outcome outcome = new Outcome();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                Map<Long, Integer> lines = orderLines.forOrder(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        Boolean placed = transaction.execute(status -> {
+                            if (!stockService.decrement(lines).isEmpty()) {
+                                status.setRollbackOnly();
+                                return false;
+                            }
+                            return true;
+                        });
+                        (Boolean.TRUE.equals(placed) ? outcome.placed : outcome.rejected).incrementAndGet();
+                    } catch (RuntimeException e) {
+                        outcome.errors.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private long createProduct(String name) {
+        Category category = categoryRepository.save(Category.builder().name("Concurrency").build());
+        return productRepository.save(Product.builder()
+                .category(category)
+                .name(name)
+                .price(BigDecimal.TEN)
+                .stockQuantity(INITIAL_STOCK)
+                .build()).getId();
+    }
+
+    private int stock(long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int sold(long productId) {
+        return jdbcTemplate.queryForObject("SELECT sold_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private interface OrderLines {
+        Map<Long, Integer> forOrder(int index);
+    }
+
+    private static final class Outcome {
+        final AtomicInteger placed = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+    }
+}
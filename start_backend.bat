@@ -23,6 +23,6 @@ echo Press Ctrl+C to stop the server
 echo ========================================
 echo.
 
-mvn spring-boot:run
+mvn spring-boot:run -Dspring-boot.run.profiles=dev
 
 pause